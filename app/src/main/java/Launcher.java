@@ -8,38 +8,221 @@
     or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
  */
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.BasicConfigurator;
 import org.eclipse.jetty.server.Connector;
 import org.eclipse.jetty.server.HttpConfiguration;
 import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.SecureRequestCustomizer;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.ServerConnector;
 import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
 import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.eclipse.jetty.util.ssl.SslContextFactory;
-
-import session.SessionSpeechlet;
+import org.eclipse.jetty.util.thread.ExecutorThreadPool;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.amazon.speech.Sdk;
+import com.amazon.speech.speechlet.AsyncSpeechletV2;
 import com.amazon.speech.speechlet.Speechlet;
+import com.amazon.speech.speechlet.SpeechletToSpeechletV2Adapter;
+import com.amazon.speech.speechlet.SpeechletV2;
+import com.amazon.speech.speechlet.SpeechletV2ToAsyncSpeechletV2Adapter;
 import com.amazon.speech.speechlet.servlet.SpeechletServlet;
+import com.amazon.speech.speechlet.store.DynamoDBSessionStore;
+import com.amazon.speech.speechlet.store.InMemorySessionStore;
+import com.amazon.speech.speechlet.store.SessionStore;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 
 /**
  * Shared launcher for executing all sample skills within a single servlet container.
+ * <p>
+ * The skills are listed in {@value #SKILLS_PROPERTY}, and each gets its own path, executor and
+ * in-flight limit.
  */
 public final class Launcher {
+    private static final Logger log = LoggerFactory.getLogger(Launcher.class);
+
     /**
-     * port number for the jetty server.
+     * default port number for the jetty server.
      */
     private static final int PORT = 8888;
 
+    /**
+     * System property naming a properties file the other {@code launcher.*} properties are read
+     * from. System properties take precedence over the file.
+     */
+    private static final String CONFIG_PROPERTY = "launcher.config";
+
+    /**
+     * System property overriding the port number.
+     */
+    private static final String PORT_PROPERTY = "launcher.port";
+
+    /**
+     * System properties for the number of acceptor and selector threads of the connector. Jetty
+     * derives them from the number of processors when unset.
+     */
+    private static final String ACCEPTORS_PROPERTY = "launcher.acceptors";
+    private static final String SELECTORS_PROPERTY = "launcher.selectors";
+
+    /**
+     * System property for the backlog of connections waiting to be accepted.
+     */
+    private static final String ACCEPT_QUEUE_SIZE_PROPERTY = "launcher.acceptQueueSize";
+
+    /**
+     * System property for how long, in milliseconds, an idle connection is kept open. The Alexa
+     * service reuses connections, so keeping them open saves a TLS handshake per request.
+     */
+    private static final String IDLE_TIMEOUT_PROPERTY = "launcher.idleTimeoutMillis";
+
+    /**
+     * System properties for the size of the platform thread pool.
+     */
+    private static final String MIN_THREADS_PROPERTY = "launcher.minThreads";
+    private static final String MAX_THREADS_PROPERTY = "launcher.maxThreads";
+
+    /**
+     * System properties for the TLS session cache, letting returning clients resume a session
+     * instead of going through a full handshake. The timeout is in seconds.
+     */
+    private static final String TLS_SESSION_CACHE_SIZE_PROPERTY = "launcher.tls.sessionCacheSize";
+    private static final String TLS_SESSION_TIMEOUT_PROPERTY = "launcher.tls.sessionTimeoutSeconds";
+
+    /**
+     * Default time an idle connection is kept open.
+     */
+    private static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60000;
+
+    /**
+     * Default TLS session cache settings.
+     */
+    private static final int DEFAULT_TLS_SESSION_CACHE_SIZE = 10000;
+    private static final int DEFAULT_TLS_SESSION_TIMEOUT_SECONDS = 3600;
+
     /**
      * Security scheme to use.
      */
     private static final String HTTPS_SCHEME = "https";
 
+    /**
+     * System property selecting where session attributes are kept: {@code memory} or
+     * {@code dynamodb}. When unset, they are kept in the request and response envelopes.
+     */
+    private static final String SESSION_STORE_PROPERTY = "launcher.sessionStore";
+
+    /**
+     * System property naming the DynamoDB table used by the {@code dynamodb} session store.
+     */
+    private static final String SESSION_TABLE_PROPERTY = "launcher.sessionStore.table";
+
+    /**
+     * System property overriding the DynamoDB endpoint, e.g. to use DynamoDB Local.
+     */
+    private static final String SESSION_ENDPOINT_PROPERTY = "launcher.sessionStore.endpoint";
+
+    /**
+     * How long stored session attributes are kept when the session does not end normally.
+     */
+    private static final long SESSION_TTL_MINUTES = 30;
+
+    /**
+     * Maximum number of sessions kept by the {@code memory} session store.
+     */
+    private static final int SESSION_STORE_SIZE = 10000;
+
+    /**
+     * System property setting how long, in milliseconds, the {@code dynamodb} session store may
+     * buffer writes. When unset, it writes through.
+     */
+    private static final String SESSION_FLUSH_INTERVAL_PROPERTY =
+            "launcher.sessionStore.flushIntervalMillis";
+
+    /**
+     * System property listing the hosted skills as comma separated {@code name=class} pairs. Each
+     * skill is mounted at {@code /name}; its class is a {@code Speechlet}, {@code SpeechletV2} or
+     * {@code AsyncSpeechletV2} with a public no-argument constructor.
+     */
+    private static final String SKILLS_PROPERTY = "launcher.skills";
+
+    /**
+     * Skills hosted when {@value #SKILLS_PROPERTY} is unset.
+     */
+    private static final String DEFAULT_SKILLS =
+            "session=session.SessionSpeechlet,"
+                    + "asteroidtracker=asteroidtracker.AsteroidTrackerSpeechlet";
+
+    /**
+     * Prefix of the per-skill system properties, {@code launcher.skill.<name>.threads} for the
+     * number of threads handling the requests of the skill and
+     * {@code launcher.skill.<name>.maxInFlight} for the number of its requests handled or waiting
+     * at once. Requests over the limit are rejected with a 503, so that a slow skill can't tie up
+     * the threads of the others. On virtual threads, each request gets a thread of its own and the
+     * number of threads is ignored.
+     */
+    private static final String SKILL_PROPERTY_PREFIX = "launcher.skill.";
+
+    /**
+     * Default number of threads per skill.
+     */
+    private static final int DEFAULT_SKILL_THREADS = 16;
+
+    /**
+     * Default number of requests in flight per skill.
+     */
+    private static final int DEFAULT_SKILL_MAX_IN_FLIGHT = 64;
+
+    /**
+     * System property enabling request handling on virtual threads, when the runtime supports
+     * them, both for Jetty and for the speechlets of the skills. Otherwise requests are handled on
+     * Jetty's pool of platform threads and each skill's bounded pool.
+     */
+    private static final String VIRTUAL_THREADS_PROPERTY = "launcher.virtualThreads";
+
+    /**
+     * System property limiting the number of requests handled concurrently, to protect the
+     * upstream services the skills call. Unset or zero for no limit.
+     */
+    private static final String MAX_CONCURRENT_REQUESTS_PROPERTY = "launcher.maxConcurrentRequests";
+
+    /**
+     * How long a request waits for one of the concurrent requests to finish before it is rejected
+     * with a 503.
+     */
+    private static final long CONCURRENT_REQUEST_WAIT_MILLIS = 5000;
+
     /**
      * default constructor.
      */
@@ -57,24 +240,38 @@ public final class Launcher {
     public static void main(final String[] args) throws Exception {
         // Configure logging to output to the console with default level of INFO
         BasicConfigurator.configure();
+        loadConfiguration();
 
         // Configure server and its associated servlets
-        Server server = new Server();
+        int port = Integer.getInteger(PORT_PROPERTY, PORT);
+        Server server = new Server(createThreadPool());
         SslConnectionFactory sslConnectionFactory = new SslConnectionFactory();
         SslContextFactory sslContextFactory = sslConnectionFactory.getSslContextFactory();
         sslContextFactory.setKeyStorePath(System.getProperty("javax.net.ssl.keyStore"));
         sslContextFactory.setKeyStorePassword(System.getProperty("javax.net.ssl.keyStorePassword"));
         sslContextFactory.setIncludeCipherSuites(Sdk.SUPPORTED_CIPHER_SUITES);
+        sslContextFactory.setSessionCachingEnabled(true);
+        sslContextFactory.setSslSessionCacheSize(Integer.getInteger(
+                TLS_SESSION_CACHE_SIZE_PROPERTY, DEFAULT_TLS_SESSION_CACHE_SIZE));
+        sslContextFactory.setSslSessionTimeout(Integer.getInteger(TLS_SESSION_TIMEOUT_PROPERTY,
+                DEFAULT_TLS_SESSION_TIMEOUT_SECONDS));
 
         HttpConfiguration httpConf = new HttpConfiguration();
-        httpConf.setSecurePort(PORT);
+        httpConf.setSecurePort(port);
         httpConf.setSecureScheme(HTTPS_SCHEME);
         httpConf.addCustomizer(new SecureRequestCustomizer());
         HttpConnectionFactory httpConnectionFactory = new HttpConnectionFactory(httpConf);
 
+        // Negative acceptor and selector counts let Jetty pick them
         ServerConnector serverConnector =
-                new ServerConnector(server, sslConnectionFactory, httpConnectionFactory);
-        serverConnector.setPort(PORT);
+                new ServerConnector(server, null, null, null,
+                        Integer.getInteger(ACCEPTORS_PROPERTY, -1),
+                        Integer.getInteger(SELECTORS_PROPERTY, -1), sslConnectionFactory,
+                        httpConnectionFactory);
+        serverConnector.setPort(port);
+        serverConnector.setIdleTimeout(Long.getLong(IDLE_TIMEOUT_PROPERTY,
+                DEFAULT_IDLE_TIMEOUT_MILLIS));
+        serverConnector.setAcceptQueueSize(Integer.getInteger(ACCEPT_QUEUE_SIZE_PROPERTY, 0));
 
         Connector[] connectors = new Connector[1];
         connectors[0] = serverConnector;
@@ -82,15 +279,330 @@ public final class Launcher {
 
         ServletContextHandler context = new ServletContextHandler(ServletContextHandler.SESSIONS);
         context.setContextPath("/");
-        server.setHandler(context);
-        context.addServlet(new ServletHolder(createServlet(new SessionSpeechlet())), "/session");
+        int maxConcurrentRequests = Integer.getInteger(MAX_CONCURRENT_REQUESTS_PROPERTY, 0);
+        if (maxConcurrentRequests > 0) {
+            ConcurrencyLimitHandler limitHandler =
+                    new ConcurrencyLimitHandler(maxConcurrentRequests);
+            limitHandler.setHandler(context);
+            server.setHandler(limitHandler);
+        } else {
+            server.setHandler(context);
+        }
+        SessionStore sessionStore = createSessionStore();
+        for (String skill : System.getProperty(SKILLS_PROPERTY, DEFAULT_SKILLS).split(",")) {
+            String[] nameAndClass = skill.trim().split("=");
+            if (nameAndClass.length != 2) {
+                throw new IllegalArgumentException("Invalid skill " + skill);
+            }
+            String name = nameAndClass[0].trim();
+            ServletHolder holder =
+                    new ServletHolder(createServlet(name, Class
+                            .forName(nameAndClass[1].trim())
+                            .getDeclaredConstructor().newInstance(), sessionStore));
+            // Lets the skill's executor complete the response without holding the container thread
+            holder.setAsyncSupported(true);
+            context.addServlet(holder, "/" + name);
+            log.info("Hosting {} at /{}", nameAndClass[1].trim(), name);
+        }
         server.start();
         server.join();
     }
 
-    private static SpeechletServlet createServlet(final Speechlet speechlet) {
+    /**
+     * Creates the thread pool selected by {@value #VIRTUAL_THREADS_PROPERTY}. Virtual threads are
+     * looked up reflectively so that the launcher still runs on runtimes without them, falling
+     * back to Jetty's default pool.
+     *
+     * @return the thread pool
+     */
+    private static ThreadPool createThreadPool() {
+        ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+        if (virtualThreads != null) {
+            log.info("Handling requests on virtual threads");
+            return new ExecutorThreadPool(virtualThreads);
+        }
+        QueuedThreadPool threadPool = new QueuedThreadPool();
+        threadPool.setMinThreads(Integer.getInteger(MIN_THREADS_PROPERTY,
+                threadPool.getMinThreads()));
+        threadPool.setMaxThreads(Integer.getInteger(MAX_THREADS_PROPERTY,
+                threadPool.getMaxThreads()));
+        return threadPool;
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task if {@value #VIRTUAL_THREADS_PROPERTY}
+     * is set. Virtual threads are looked up reflectively so that the launcher still runs on
+     * runtimes without them.
+     *
+     * @return the executor, or {@code null} to use platform threads
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        if (!Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY)) {
+            return null;
+        }
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not supported by this runtime, "
+                    + "handling requests on platform threads");
+            return null;
+        }
+    }
+
+    /**
+     * Reads the properties file named by {@value #CONFIG_PROPERTY}, if any, into the system
+     * properties that are not set yet.
+     *
+     * @throws IOException
+     *             if the file can't be read
+     */
+    private static void loadConfiguration() throws IOException {
+        String config = System.getProperty(CONFIG_PROPERTY);
+        if (StringUtils.isBlank(config)) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(config)) {
+            properties.load(in);
+        }
+        for (String name : properties.stringPropertyNames()) {
+            if (System.getProperty(name) == null) {
+                System.setProperty(name, properties.getProperty(name));
+            }
+        }
+    }
+
+    /**
+     * Creates the servlet of a skill. Synchronous speechlets are run on an executor of their own,
+     * bounded by the {@code launcher.skill.<name>.*} properties, see
+     * {@link #createSkillExecutor(String)}.
+     *
+     * @param name
+     *            the name of the skill
+     * @param speechlet
+     *            the {@code Speechlet}, {@code SpeechletV2} or {@code AsyncSpeechletV2}
+     * @param sessionStore
+     *            the session store, or {@code null}
+     * @return the servlet
+     */
+    private static SpeechletServlet createServlet(final String name, final Object speechlet,
+            final SessionStore sessionStore) {
         SpeechletServlet servlet = new SpeechletServlet();
-        servlet.setSpeechlet(speechlet);
+        if (speechlet instanceof AsyncSpeechletV2) {
+            servlet.setSpeechlet((AsyncSpeechletV2) speechlet);
+        } else if (speechlet instanceof SpeechletV2) {
+            servlet.setSpeechlet(new SpeechletV2ToAsyncSpeechletV2Adapter(
+                    (SpeechletV2) speechlet, createSkillExecutor(name)));
+        } else if (speechlet instanceof Speechlet) {
+            servlet.setSpeechlet(new SpeechletV2ToAsyncSpeechletV2Adapter(
+                    new SpeechletToSpeechletV2Adapter((Speechlet) speechlet),
+                    createSkillExecutor(name)));
+        } else {
+            throw new IllegalArgumentException(speechlet.getClass() + " is not a speechlet");
+        }
+        servlet.setSessionStore(sessionStore);
         return servlet;
     }
+
+    /**
+     * Creates the executor of a skill, rejecting requests once the in-flight limit is reached. On
+     * virtual threads, every request runs on a new virtual thread, so the blocking calls of the
+     * speechlet don't tie up platform threads. Otherwise, a fixed number of platform threads
+     * serves a bounded queue.
+     *
+     * @param name
+     *            the name of the skill
+     * @return the executor
+     */
+    private static Executor createSkillExecutor(final String name) {
+        int maxInFlight = Integer.getInteger(SKILL_PROPERTY_PREFIX + name + ".maxInFlight",
+                DEFAULT_SKILL_MAX_IN_FLIGHT);
+        ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+        if (virtualThreads != null) {
+            if (maxInFlight <= 0) {
+                throw new IllegalArgumentException("Skill " + name
+                        + " needs a positive number of requests in flight");
+            }
+            log.info("Handling the requests of skill {} on virtual threads", name);
+            return new InFlightLimitingExecutor(virtualThreads, maxInFlight);
+        }
+
+        int threads = Integer.getInteger(SKILL_PROPERTY_PREFIX + name + ".threads",
+                DEFAULT_SKILL_THREADS);
+        if (threads <= 0 || maxInFlight < threads) {
+            throw new IllegalArgumentException("Skill " + name + " needs a positive number of "
+                    + "threads and at least as many requests in flight");
+        }
+
+        BlockingQueue<Runnable> queue =
+                maxInFlight > threads ? new LinkedBlockingQueue<Runnable>(maxInFlight - threads)
+                        : new SynchronousQueue<Runnable>();
+        final AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread =
+                                new Thread(runnable, "skill-" + name + "-"
+                                        + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Creates the session store selected by {@value #SESSION_STORE_PROPERTY}.
+     *
+     * @return the session store, or {@code null} to keep session attributes in the envelopes
+     */
+    private static SessionStore createSessionStore() {
+        String type = System.getProperty(SESSION_STORE_PROPERTY);
+        if (StringUtils.isBlank(type)) {
+            return null;
+        } else if ("memory".equals(type)) {
+            return new InMemorySessionStore(SESSION_STORE_SIZE, SESSION_TTL_MINUTES,
+                    TimeUnit.MINUTES);
+        } else if ("dynamodb".equals(type)) {
+            AmazonDynamoDBClient dynamoDB = new AmazonDynamoDBClient();
+            String endpoint = System.getProperty(SESSION_ENDPOINT_PROPERTY);
+            if (!StringUtils.isBlank(endpoint)) {
+                dynamoDB.setEndpoint(endpoint);
+            }
+            return new DynamoDBSessionStore(dynamoDB, System.getProperty(SESSION_TABLE_PROPERTY),
+                    TimeUnit.MINUTES.toMillis(SESSION_TTL_MINUTES),
+                    Long.getLong(SESSION_FLUSH_INTERVAL_PROPERTY, 0), TimeUnit.MILLISECONDS);
+        } else {
+            throw new IllegalArgumentException("Unknown session store " + type);
+        }
+    }
+
+    /**
+     * Runs the tasks of a skill on an executor without a bound of its own, such as one starting a
+     * virtual thread per task, and rejects them once the in-flight limit is reached.
+     */
+    private static final class InFlightLimitingExecutor implements Executor {
+        private final Executor executor;
+        private final Semaphore permits;
+
+        private InFlightLimitingExecutor(final Executor executor, final int maxInFlight) {
+            this.executor = executor;
+            this.permits = new Semaphore(maxInFlight);
+        }
+
+        @Override
+        public void execute(final Runnable task) {
+            if (!permits.tryAcquire()) {
+                throw new RejectedExecutionException("Too many requests in flight");
+            }
+
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            task.run();
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Limits the number of requests handled concurrently. Requests over the limit wait for a
+     * handled request to finish, which costs little on virtual threads, and are rejected with a
+     * 503 if none finishes in time.
+     * <p>
+     * A request counts until its response is complete: the skill servlets handle requests
+     * asynchronously on their own executors, so a request that went async holds its permit until
+     * its {@code AsyncContext} completes rather than until the container thread returns.
+     */
+    private static final class ConcurrencyLimitHandler extends HandlerWrapper {
+        private final Semaphore permits;
+
+        private ConcurrencyLimitHandler(final int maxConcurrentRequests) {
+            permits = new Semaphore(maxConcurrentRequests);
+        }
+
+        @Override
+        public void handle(final String target, final Request baseRequest,
+                final HttpServletRequest request, final HttpServletResponse response)
+                throws IOException, ServletException {
+            if (request.getDispatcherType() == DispatcherType.ASYNC) {
+                // Redispatch of a request that already holds a permit
+                super.handle(target, baseRequest, request, response);
+                return;
+            }
+
+            boolean acquired;
+            try {
+                acquired =
+                        permits.tryAcquire(CONCURRENT_REQUEST_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+
+            if (!acquired) {
+                baseRequest.setHandled(true);
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+
+            boolean async = false;
+            try {
+                super.handle(target, baseRequest, request, response);
+                if (baseRequest.isAsyncStarted()) {
+                    baseRequest.getAsyncContext().addListener(new PermitReleasingListener());
+                    async = true;
+                }
+            } finally {
+                if (!async) {
+                    permits.release();
+                }
+            }
+        }
+
+        /**
+         * Releases the permit of an asynchronous request once, whichever way the request ends.
+         */
+        private final class PermitReleasingListener implements AsyncListener {
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            @Override
+            public void onComplete(final AsyncEvent event) {
+                release();
+            }
+
+            @Override
+            public void onError(final AsyncEvent event) {
+                release();
+            }
+
+            @Override
+            public void onTimeout(final AsyncEvent event) {
+                release();
+            }
+
+            @Override
+            public void onStartAsync(final AsyncEvent event) {
+                // Async restarted on a redispatch, keep the permit until that one ends
+                event.getAsyncContext().addListener(this);
+            }
+
+            private void release() {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
 }
@@ -9,28 +9,29 @@
  */
 package asteroidtracker;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.amazon.speech.slu.Intent;
 import com.amazon.speech.slu.Slot;
 import com.amazon.speech.speechlet.IntentRequest;
+import com.amazon.speech.speechlet.IntentRouter;
 import com.amazon.speech.speechlet.LaunchRequest;
 import com.amazon.speech.speechlet.Session;
 import com.amazon.speech.speechlet.SessionEndedRequest;
@@ -44,9 +45,6 @@ import com.amazon.speech.ui.SsmlOutputSpeech;
 import com.amazon.speech.ui.Reprompt;
 import com.amazon.speech.ui.SimpleCard;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -55,12 +53,14 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
     private static final Logger log = LoggerFactory.getLogger(AsteroidTrackerSpeechlet.class);
 
     /**
-     * URL prefix to download history content from Wikipedia.
+     * Connect and read timeout, in milliseconds, for the NeoWs API call.
      */
-    private static final String URL_PREFIX = "https://api.nasa.gov/neo/rest/v1/feed?";
-    private static final String URL_START_DATE = "start_date=";
-    private static final String URL_END_DATE = "&end_date=";
-    private static final String URL_POSTFIX = "&detailed=false&api_key=DEMO_KEY";
+    private static final int NEOWS_TIMEOUT_MILLIS = 3000;
+
+    /**
+     * Time, in milliseconds, a request waits on a NeoWs call already in flight for the same date.
+     */
+    private static final long FEED_WAIT_TIMEOUT_MILLIS = 2 * NEOWS_TIMEOUT_MILLIS;
 
     /**
      * Constant defining number of events to be read at one time.
@@ -73,14 +73,9 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
     private static final int DELIMITER_SIZE = 2;
 
     /**
-     * Constant defining session attribute key for the event index.
-     */
-    private static final String SESSION_INDEX = "index";
-
-    /**
-     * Constant defining session attribute key for the event text key for date of events.
+     * Constant defining session attribute key for the {@link FeedCursor} of the date of events.
      */
-    private static final String SESSION_TEXT = "text";
+    private static final String SESSION_CURSOR = "cursor";
 
     /**
      * Constant defining session attribute key for the intent slot key for the date of events.
@@ -110,9 +105,122 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
             "December"
     };
 
+    /**
+     * Intent schema the intent handlers are validated against, relative to this class.
+     */
+    private static final String INTENT_SCHEMA = "speechAssets/IntentSchema.json";
+
     private static final String INFORMATION_TEXT = "With Asteroid Tracker, you can get near earth object events for any day of the year."
             + " For example, you could say give me events for today, or give events for July fourth, 2015."
             + " So, which day do you want?";
+
+    /**
+     * Cache of parsed NeoWs feeds, shared by every session handled by this speechlet.
+     */
+    private final NeoWsFeedCache feedCache;
+
+    /**
+     * Coalesces concurrent NeoWs calls for the same date into a single call.
+     */
+    private final SingleFlight<String, List<NearEarthObject>> feedFetches =
+            new SingleFlight<String, List<NearEarthObject>>();
+
+    /**
+     * Client of the NeoWs API, keeping connections open between calls.
+     */
+    private final NeoWsClient neoWsClient = new NeoWsClient(NEOWS_TIMEOUT_MILLIS);
+
+    /**
+     * Routes intents to their handlers, validated against the skill's intent schema.
+     */
+    private final IntentRouter intentRouter;
+
+    /*
+     * Responses that are the same for every request, declared constant so that the request handler
+     * serializes each of them once.
+     */
+    private final SpeechletResponse welcomeResponse = constant(newAskResponse(
+            "Welcome to Asteroid Tracker. What day do you want events for?", false,
+            INFORMATION_TEXT, false));
+    private final SpeechletResponse helpResponse = constant(newAskResponse(INFORMATION_TEXT, false,
+            INFORMATION_TEXT, false));
+    private final SpeechletResponse goodbyeResponse = constant(newGoodbyeResponse());
+    private final SpeechletResponse invalidDateResponse = constant(newInvalidDateResponse());
+
+    public AsteroidTrackerSpeechlet() {
+        this(new NeoWsFeedCache());
+    }
+
+    public AsteroidTrackerSpeechlet(final NeoWsFeedCache feedCache) {
+        this.feedCache = feedCache;
+        this.intentRouter = createIntentRouter();
+    }
+
+    /**
+     * Returns the cache of parsed NeoWs feeds, e.g. to inspect its hit, miss and eviction counts.
+     *
+     * @return the feed cache
+     */
+    public NeoWsFeedCache getFeedCache() {
+        return feedCache;
+    }
+
+    /**
+     * Returns the client of the NeoWs API, e.g. to inspect its connection reuse.
+     *
+     * @return the NeoWs client
+     */
+    public NeoWsClient getNeoWsClient() {
+        return neoWsClient;
+    }
+
+    /**
+     * Returns the responses of this speechlet that are the same for every request, so that they can
+     * be prepared ahead of the first request.
+     *
+     * @return the constant responses
+     */
+    public SpeechletResponse[] getConstantResponses() {
+        return new SpeechletResponse[] {
+                welcomeResponse, helpResponse, goodbyeResponse, invalidDateResponse
+        };
+    }
+
+    /**
+     * Fetches today's NeoWs feed into the cache ahead of the first request. Besides the feed
+     * itself, this pays for the TLS setup to NeoWs and leaves a kept-alive connection behind for
+     * the first real fetch. A failure is only logged.
+     * <p>
+     * The fetch runs on a daemon thread and is waited for no longer than the timeout of a single
+     * NeoWs call, so that a slow or unreachable NeoWs can't hold up the caller. A fetch still in
+     * flight then completes in the background, and a request for today joins it.
+     */
+    public void warmUp() {
+        final String today = LocalDate.now().toString();
+        FutureTask<List<NearEarthObject>> fetch =
+                new FutureTask<List<NearEarthObject>>(new Callable<List<NearEarthObject>>() {
+                    @Override
+                    public List<NearEarthObject> call() {
+                        return getAsteroidInfo(today);
+                    }
+                });
+        Thread thread = new Thread(fetch, "neows-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+
+        try {
+            List<NearEarthObject> events = fetch.get(NEOWS_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            log.info("NeoWs warm up fetched {} near earth objects", events.size());
+        } catch (TimeoutException e) {
+            log.warn("NeoWs warm up still in flight after {} ms, leaving it to the background",
+                    NEOWS_TIMEOUT_MILLIS);
+        } catch (ExecutionException e) {
+            log.warn("NeoWs warm up failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @Override
     public void onSessionStarted(final SessionStartedRequest request, final Session session)
             throws SpeechletException {
@@ -137,38 +245,7 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
         log.info("onIntent requestId={}, sessionId={}", request.getRequestId(),
                 session.getSessionId());
 
-        Intent intent = request.getIntent();
-        String intentName = intent.getName();
-
-        if ("GetFirstEventIntent".equals(intentName)) {
-            return handleFirstEventRequest(intent, session);
-        }
-
-        else if ("AMAZON.YesIntent".equals(intentName)) {
-            return handleNextEventRequest(session);
-        }
-
-        else if ("AMAZON.HelpIntent".equals(intentName)) {
-            return newAskResponse(INFORMATION_TEXT, false, INFORMATION_TEXT, false);
-        }
-        
-         else if ("AMAZON.StopIntent".equals(intentName)) {
-            PlainTextOutputSpeech outputSpeech = new PlainTextOutputSpeech();
-            outputSpeech.setText("Goodbye");
-
-            return SpeechletResponse.newTellResponse(outputSpeech);
-        }
-        
-         else if ("AMAZON.CancelIntent".equals(intentName)) {
-            PlainTextOutputSpeech outputSpeech = new PlainTextOutputSpeech();
-            outputSpeech.setText("Goodbye");
-
-            return SpeechletResponse.newTellResponse(outputSpeech);
-        }
-        
-         else {
-            throw new SpeechletException("Invalid Intent");
-        }
+        return intentRouter.route(request, session);
     }
 
     @Override
@@ -180,15 +257,56 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
         // any session cleanup logic would go here
     }
 
+    /**
+     * Registers the handler of every intent in {@code speechAssets/IntentSchema.json}. Unknown
+     * intents get the help text instead of an error.
+     *
+     * @return the intent router
+     */
+    private IntentRouter createIntentRouter() {
+        IntentRouter.IntentHandler nextEventHandler = new IntentRouter.IntentHandler() {
+            @Override
+            public SpeechletResponse handle(IntentRequest request, Session session) {
+                return handleNextEventRequest(session);
+            }
+        };
+        IntentRouter.IntentHandler helpHandler = new IntentRouter.IntentHandler() {
+            @Override
+            public SpeechletResponse handle(IntentRequest request, Session session) {
+                return helpResponse;
+            }
+        };
+        IntentRouter.IntentHandler goodbyeHandler = new IntentRouter.IntentHandler() {
+            @Override
+            public SpeechletResponse handle(IntentRequest request, Session session) {
+                return goodbyeResponse;
+            }
+        };
+
+        return IntentRouter.builder()
+                .withIntentHandler("GetFirstEventIntent", new IntentRouter.IntentHandler() {
+                    @Override
+                    public SpeechletResponse handle(IntentRequest request, Session session) {
+                        return handleFirstEventRequest(request.getIntent(), session);
+                    }
+                })
+                .withIntentHandler("GetNextEventIntent", nextEventHandler)
+                .withIntentHandler("AMAZON.YesIntent", nextEventHandler)
+                .withIntentHandler("AMAZON.HelpIntent", helpHandler)
+                .withIntentHandler("AMAZON.StopIntent", goodbyeHandler)
+                .withIntentHandler("AMAZON.CancelIntent", goodbyeHandler)
+                .withFallbackHandler(helpHandler)
+                .withIntentSchemaResource(getClass(), INTENT_SCHEMA)
+                .build();
+    }
+
     /**
      * Function to handle the onLaunch skill behavior.
      * 
      * @return SpeechletResponse object with voice/card response to return to the user
      */
     private SpeechletResponse getWelcomeResponse() {
-        String speechOutput = "Welcome to Asteroid Tracker. What day do you want events for?";
-
-        return newAskResponse(speechOutput, false, INFORMATION_TEXT, false);
+        return welcomeResponse;
     }
 
     /**
@@ -244,13 +362,7 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
 
         if(calendar == null)
         {
-            speechOutput = "Invalid date, please try again. For example, you could say give me events for today, or give events for July fourth, 2015.";
-
-            // Create the plain text output
-            SsmlOutputSpeech outputSpeech = new SsmlOutputSpeech();
-            outputSpeech.setSsml(buildSpeechOutputMarkup(speechOutput));
-
-            return SpeechletResponse.newTellResponse(outputSpeech);
+            return invalidDateResponse;
         }
 
         Date datetime = calendar.getTime();
@@ -263,7 +375,8 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
         String cardPrefixContent = "For " + month + " " + date + ", "+ year + ", ";
         String cardTitle = "Asteroids on " + month + " " + date+ ", " + year + ", ";
 
-        ArrayList<String> events = getAsteroidInfo(new SimpleDateFormat("yyyy-MM-dd").format(datetime));
+        String feedDate = new SimpleDateFormat("yyyy-MM-dd").format(datetime);
+        List<NearEarthObject> events = getAsteroidInfo(feedDate);
 
         if (events.isEmpty())
         {
@@ -287,10 +400,11 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
             for (int i = 0; i < PAGINATION_SIZE; i++) {
                 if (events.size() > i)
                 {
+                String description = describe(events.get(i), i);
                 speechOutputBuilder.append("<p>");
-                speechOutputBuilder.append(events.get(i));
+                speechOutputBuilder.append(description);
                 speechOutputBuilder.append("</p> ");
-                cardOutputBuilder.append(events.get(i));
+                cardOutputBuilder.append(description);
                 cardOutputBuilder.append("\n");
                 }
         }
@@ -304,10 +418,11 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
             card.setTitle(cardTitle);
             card.setContent(cardOutputBuilder.toString());
 
-            // After reading the first event, set the count to 1 and add the events
-            // to the session attributes
-            session.setAttribute(SESSION_INDEX, PAGINATION_SIZE);
-            session.setAttribute(SESSION_TEXT, events);
+            // After reading the first event, point the cursor in the session attributes at the
+            // next one. The events themselves stay in the feed cache.
+            FeedCursor cursor =
+                    new FeedCursor(feedDate, PAGINATION_SIZE, FeedCursor.version(events));
+            session.setAttribute(SESSION_CURSOR, cursor.toString());
 
             SpeechletResponse response = newAskResponse(buildSpeechOutputMarkup(speechOutput), true, INFORMATION_TEXT, false);
             response.setCard(card);
@@ -316,53 +431,76 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
     }
 
     /**
-     * Prepares the speech to reply to the user. Obtains the list of events as well as the current
-     * index from the session attributes. After getting the next set of events, increment the index
-     * and store it back in session attributes. This allows us to obtain new events without making
-     * repeated network calls, by storing values (events, index) during the interaction with the
-     * user.
+     * Prepares the speech to reply to the user. Obtains the cursor from the session attributes and
+     * rebuilds the list of events it points into from the feed cache. After getting the next set
+     * of events, advance the cursor and store it back in session attributes. This keeps the
+     * session attributes small, while the feed cache avoids repeated network calls during the
+     * interaction with the user. If the feed for the date has changed since the cursor was
+     * created, the events are read again from the start.
      * 
      * @param session
-     *            object containing session attributes with events list and index
+     *            object containing session attributes with the cursor
      * @return SpeechletResponse object with voice/card response to return to the user
      */
     private SpeechletResponse handleNextEventRequest(Session session) {
         String cardTitle = "More asteroid events on this day";
-        ArrayList<String> events = (ArrayList<String>) session.getAttribute(SESSION_TEXT);
-        int index = (Integer) session.getAttribute(SESSION_INDEX);
+        FeedCursor cursor = FeedCursor.parse((String) session.getAttribute(SESSION_CURSOR));
         String speechOutput = "";
         String cardOutput = "";
-        if (events == null) {
+        if (cursor == null) {
             speechOutput = INFORMATION_TEXT;
+        } else {
+            List<NearEarthObject> events = getAsteroidInfo(cursor.getDate());
+            if (events.isEmpty()) {
+                speechOutput = "There is a problem connecting to the NASA A.P.I at this time."
+                                + " Please try again later.";
 
+                SsmlOutputSpeech outputSpeech = new SsmlOutputSpeech();
+                outputSpeech.setSsml(buildSpeechOutputMarkup(speechOutput));
+
+                return SpeechletResponse.newTellResponse(outputSpeech);
+            }
+
+            int version = FeedCursor.version(events);
+            int index = cursor.getIndex();
 
-        } else if (index >= events.size()) {
-            speechOutput =
-                    "There are no more events for this date. Try another date by saying, "
-                            + " get events for February third, 2014.";
-        } else {
             StringBuilder speechOutputBuilder = new StringBuilder();
             StringBuilder cardOutputBuilder = new StringBuilder();
-            for (int i = 0; i < PAGINATION_SIZE && index < events.size(); i++) {
-                speechOutputBuilder.append("<p>");
-                speechOutputBuilder.append(events.get(index));
-                speechOutputBuilder.append("</p> ");
-                cardOutputBuilder.append(events.get(index));
-                cardOutputBuilder.append(" ");
-                index++;
-            }
-            if (index < events.size()) {
-                speechOutputBuilder.append(" Want more events?");
-                cardOutputBuilder.append(" Want more events?");
+            if (version != cursor.getVersion()) {
+                log.info("NeoWs feed for {} changed since the cursor was created, restarting",
+                        cursor.getDate());
+                speechOutputBuilder.append("The asteroid information for this date has been updated, starting over. ");
+                cardOutputBuilder.append("The asteroid information for this date has been updated, starting over. ");
+                index = 0;
             }
 
-            else {
-                speechOutputBuilder.append(" There are no more events for today, would you like to get events for another day?");
-                cardOutputBuilder.append(" There are no more events for today, would you like to get events for another day?");
+            if (index >= events.size()) {
+                speechOutput =
+                        "There are no more events for this date. Try another date by saying, "
+                                + " get events for February third, 2014.";
+            } else {
+                for (int i = 0; i < PAGINATION_SIZE && index < events.size(); i++) {
+                    String description = describe(events.get(index), index);
+                    speechOutputBuilder.append("<p>");
+                    speechOutputBuilder.append(description);
+                    speechOutputBuilder.append("</p> ");
+                    cardOutputBuilder.append(description);
+                    cardOutputBuilder.append(" ");
+                    index++;
+                }
+                if (index < events.size()) {
+                    speechOutputBuilder.append(" Want more events?");
+                    cardOutputBuilder.append(" Want more events?");
+                }
+
+                else {
+                    speechOutputBuilder.append(" There are no more events for today, would you like to get events for another day?");
+                    cardOutputBuilder.append(" There are no more events for today, would you like to get events for another day?");
+                }
+                session.setAttribute(SESSION_CURSOR, cursor.moveTo(index, version).toString());
+                speechOutput = speechOutputBuilder.toString();
+                cardOutput = cardOutputBuilder.toString();
             }
-            session.setAttribute(SESSION_INDEX, index);
-            speechOutput = speechOutputBuilder.toString();
-            cardOutput = cardOutputBuilder.toString();
         }
 
         // Create the Simple card content.
@@ -376,100 +514,106 @@ public class AsteroidTrackerSpeechlet implements Speechlet {
     }
 
     /**
-     * Download JSON-formatted list of events from NeoWs API, for a defined day/date, and return a
-     * String array of the events, with each event representing an element in the array.
-     * 
-     * @param month
-     *            the month to get events for, example: April
+     * Return the events for a defined day/date, from the feed cache if present, otherwise by
+     * downloading them from the NeoWs API and caching the result. Concurrent requests for the same
+     * date share a single download. If the download fails or can't be waited for, an empty list is
+     * returned and nothing is cached, so the next request tries again.
+     *
      * @param date
-     *            the date to get events for, example: 7
-     * @return String array of events for that date, 1 event per element of the array
+     *            the date to get events for, example: 2015-07-04
+     * @return the near earth objects for that date
      */
-    private ArrayList<String> getAsteroidInfo(String date)
+    private List<NearEarthObject> getAsteroidInfo(final String date)
     {
-        InputStreamReader inputStream = null;
-        BufferedReader bufferedReader = null;
-        String text = "";
+        List<NearEarthObject> events = feedCache.get(date);
+        if (events != null) {
+            return events;
+        }
+
         try {
-            String line;
-            URL url = new URL(URL_PREFIX + URL_START_DATE + date + URL_END_DATE + date + URL_POSTFIX);
-            inputStream = new InputStreamReader(url.openStream(), Charset.forName("US-ASCII"));
-            bufferedReader = new BufferedReader(inputStream);
-            StringBuilder builder = new StringBuilder();
-            while ((line = bufferedReader.readLine()) != null) {
-                builder.append(line);
-            }
-            text = builder.toString();
-        } catch (IOException e) {
-            // reset text variable to a blank string
-            text = "";
-        } finally {
-            IOUtils.closeQuietly(inputStream);
-            IOUtils.closeQuietly(bufferedReader);
+            return feedFetches.execute(date, new Callable<List<NearEarthObject>>() {
+                @Override
+                public List<NearEarthObject> call() throws IOException {
+                    // A flight completing between the cache miss above and this one has already
+                    // cached the feed
+                    List<NearEarthObject> cached = feedCache.get(date);
+                    if (cached != null) {
+                        return cached;
+                    }
+
+                    List<NearEarthObject> downloaded = neoWsClient.fetch(date);
+                    feedCache.put(date, downloaded);
+                    log.debug("NeoWs feed for {} fetched, {}, {}", date, feedCache, neoWsClient);
+                    return downloaded;
+                }
+            }, FEED_WAIT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            log.warn("NeoWs feed for {} could not be fetched", date, e.getCause());
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for the NeoWs feed for {}", date);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        return parseJson(text, date);
+        return Collections.<NearEarthObject>emptyList();
     }
 
     /**
-     * Parse JSON-formatted list of events/births/deaths from Wikipedia, extract list of events and
-     * split the events into a String array of individual events. Run Regex matchers to make the
-     * list pretty by adding a comma after the year to add a pause, and by removing a unicode char.
-     * 
-     * @param text
-     *            the JSON formatted list of events/births/deaths for a certain date
-     * @return String array of events for that date, 1 event per element of the array
+     * Describe a near earth object in a sentence, suitable both for speech and for a card.
+     *
+     * @param nearEarthObject
+     *            the near earth object to describe
+     * @param index
+     *            the position of the near earth object in the feed
+     * @return the sentence describing the near earth object
      */
-    private ArrayList<String> parseJson(String text, String date) {
-        ArrayList<String> events = new ArrayList<String>();
-
-        if (text.isEmpty()) {
-            return events;
-        }
-        JsonParser parser = new JsonParser();
-        JsonObject object = parser.parse(text).getAsJsonObject();
+    private String describe(NearEarthObject nearEarthObject, int index) {
+        DecimalFormat df = new DecimalFormat("#.##");
 
-        JsonArray asteroidArray = object.get("near_earth_objects").getAsJsonObject().get(date).getAsJsonArray();
+        String asteroidIdText = "Asteroid " + index + ", name is "  + nearEarthObject.getName() + ",";
+        String magnitudeText = "The absolute magnitude is " + nearEarthObject.getAbsoluteMagnitude();
+        String sizeText = ", the estimated diameter is from " + df.format(nearEarthObject.getMinimumDiameter()) + " to " + df.format(nearEarthObject.getMaximumDiameter()) + " kilometers,";
 
-        for (int i = 0; i < object.get("element_count").getAsInt(); i++) {
-            JsonObject thisAsteroid = asteroidArray.get(i).getAsJsonObject();
-
-            String asteroidName = thisAsteroid.get("name").getAsString();
-
-            float absoluteMagnitude = thisAsteroid.get("absolute_magnitude_h").getAsFloat();
-
-            JsonObject estimatedDiameterKilometers = thisAsteroid.get("estimated_diameter").getAsJsonObject().get("kilometers").getAsJsonObject();
-            float minimumDiameter = estimatedDiameterKilometers.get("estimated_diameter_min").getAsFloat();
-            float maximumDiameter = estimatedDiameterKilometers.get("estimated_diameter_max").getAsFloat();
+        String dangerousnessText;
+        if (nearEarthObject.isPotentiallyHazardous()) {
+            dangerousnessText = "This object is dangerous!";
+        } else {
+            dangerousnessText = "This object is not dangerous,";
+        }
 
-            boolean isDangerousObject = thisAsteroid.get("is_potentially_hazardous_asteroid").getAsString() == "false";
+        String speedText = "It is traveling at " + df.format(nearEarthObject.getSpeed()) + " kilometers per hour";
+        String distanceText = " at a distance of " + df.format(nearEarthObject.getMissDistance()) + " kilometers";
+        String orbitingBodyText = " and is orbiting " + nearEarthObject.getOrbitingBody();
 
-            JsonObject closeApproachData= thisAsteroid.get("close_approach_data").getAsJsonArray().get(0).getAsJsonObject();
-            float speed = closeApproachData.get("relative_velocity").getAsJsonObject().get("kilometers_per_hour").getAsFloat();
-            Number missDistance = closeApproachData.get("miss_distance").getAsJsonObject().get("kilometers").getAsNumber();
-            String orbitingBody = closeApproachData.get("orbiting_body").getAsString();
+        return asteroidIdText + magnitudeText + sizeText + dangerousnessText + speedText + distanceText + orbitingBodyText;
+    }
 
-            DecimalFormat df = new DecimalFormat("#.##");
+    /**
+     * Declares the provided response constant.
+     *
+     * @param response
+     *            the response, which must not be modified afterwards
+     * @return the response
+     */
+    private static SpeechletResponse constant(SpeechletResponse response) {
+        response.setConstant(true);
+        return response;
+    }
 
-            String asteroidIdText = "Asteroid " + i + ", name is "  + asteroidName + ",";
-            String magnitudeText = "The absolute magnitude is " + absoluteMagnitude;
-            String sizeText = ", the estimated diameter is from " + df.format(minimumDiameter) + " to " + df.format(maximumDiameter) + " kilometers,";
+    private SpeechletResponse newGoodbyeResponse() {
+        PlainTextOutputSpeech outputSpeech = new PlainTextOutputSpeech();
+        outputSpeech.setText("Goodbye");
 
-            String dangerousnessText;
-            if (isDangerousObject) {
-                dangerousnessText = "This object is dangerous!";
-            } else {
-                dangerousnessText = "This object is not dangerous,";
-            }
+        return SpeechletResponse.newTellResponse(outputSpeech);
+    }
 
-            String speedText = "It is traveling at " + df.format(speed) + " kilometers per hour";
-            String distanceText = " at a distance of " + missDistance + " kilometers";
-            String orbitingBodyText = " and is orbiting " + orbitingBody;
+    private SpeechletResponse newInvalidDateResponse() {
+        String speechOutput = "Invalid date, please try again. For example, you could say give me events for today, or give events for July fourth, 2015.";
 
-            String eventText = asteroidIdText + magnitudeText + sizeText + dangerousnessText + speedText + distanceText + orbitingBodyText;
-            events.add(eventText);
-        }
+        // Create the plain text output
+        SsmlOutputSpeech outputSpeech = new SsmlOutputSpeech();
+        outputSpeech.setSsml(buildSpeechOutputMarkup(speechOutput));
 
-        return events;
+        return SpeechletResponse.newTellResponse(outputSpeech);
     }
 
     /**
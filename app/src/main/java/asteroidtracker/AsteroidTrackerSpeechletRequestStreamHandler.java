@@ -36,7 +36,18 @@ public class AsteroidTrackerSpeechletRequestStreamHandler extends SpeechletReque
     }
 
     public AsteroidTrackerSpeechletRequestStreamHandler() {
-        super(new AsteroidTrackerSpeechlet(), supportedApplicationIds);
+        this(new AsteroidTrackerSpeechlet());
+    }
+
+    private AsteroidTrackerSpeechletRequestStreamHandler(AsteroidTrackerSpeechlet speechlet) {
+        super(speechlet, supportedApplicationIds);
+
+        // Lambda constructs the handler during the init phase of the container, pay for the first
+        // request's class loading and the NeoWs connection there rather than on the first request.
+        // The warm up waits no longer than one NeoWs call's timeout.
+        prime("LaunchRequest");
+        prepareConstantResponses(speechlet.getConstantResponses());
+        speechlet.warmUp();
     }
 
     public AsteroidTrackerSpeechletRequestStreamHandler(Speechlet speechlet,
@@ -0,0 +1,128 @@
+/**
+    Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package asteroidtracker;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Position of a user within the near earth objects of a date, in feed order, kept in the session between
+ * {@code AMAZON.YesIntent} turns.
+ * <p>
+ * Only the cursor travels in the session attributes; the page it points to is rebuilt from the
+ * feed cache on every turn. The dataset version is a fingerprint of the feed the cursor was
+ * created against, so a turn can tell when the feed for the date has changed in between.
+ * <p>
+ * The cursor is serialized as a short string, {@code date:index:version}, e.g.
+ * {@code 2015-07-04:1:5f3a2c01}.
+ */
+public final class FeedCursor {
+    private static final char SEPARATOR = ':';
+
+    private final String date;
+    private final int index;
+    private final int version;
+
+    /**
+     * @param date
+     *            the date, formatted as {@code yyyy-MM-dd} and accepted by
+     *            {@link LocalDate#parse(CharSequence)}
+     * @param index
+     *            the index of the next near earth object to read, not negative
+     * @param version
+     *            the dataset version, see {@link #version(List)}
+     */
+    public FeedCursor(final String date, final int index, final int version) {
+        if (date == null) {
+            throw new IllegalArgumentException("A null date is not supported");
+        }
+        try {
+            LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("A date that is not yyyy-MM-dd is not supported", e);
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("A negative index is not supported");
+        }
+
+        this.date = date;
+        this.index = index;
+        this.version = version;
+    }
+
+    /**
+     * Returns the dataset version of a feed. The version only depends on the content of the feed,
+     * so it is the same on every host serving the skill.
+     *
+     * @param nearEarthObjects
+     *            the near earth objects in feed order
+     * @return the dataset version
+     */
+    public static int version(final List<NearEarthObject> nearEarthObjects) {
+        return nearEarthObjects.hashCode();
+    }
+
+    /**
+     * Parses a cursor previously produced by {@link #toString()}.
+     *
+     * @param value
+     *            the serialized cursor, may be {@code null}
+     * @return the cursor, or {@code null} if the value is missing, malformed, has a date that
+     *         isn't a valid {@code yyyy-MM-dd} date or has a negative index
+     */
+    public static FeedCursor parse(final String value) {
+        if (value == null) {
+            return null;
+        }
+
+        String[] parts = value.split(String.valueOf(SEPARATOR));
+        if (parts.length != 3) {
+            return null;
+        }
+
+        try {
+            return new FeedCursor(parts[0], Integer.parseInt(parts[1]),
+                    Integer.parseUnsignedInt(parts[2], 16));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a copy of this cursor moved to the provided index of the provided dataset version.
+     *
+     * @param index
+     *            the index of the next near earth object to read
+     * @param version
+     *            the dataset version
+     * @return the moved cursor
+     */
+    public FeedCursor moveTo(final int index, final int version) {
+        return new FeedCursor(date, index, version);
+    }
+
+    @Override
+    public String toString() {
+        return date + SEPARATOR + index + SEPARATOR + Integer.toHexString(version);
+    }
+}
@@ -0,0 +1,183 @@
+/**
+    Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package asteroidtracker;
+
+import java.util.Objects;
+
+/**
+ * A near earth object as reported by the NeoWs feed for a given date, reduced to the fields the
+ * skill speaks. Diameters and distances are in kilometers, speeds in kilometers per hour.
+ * <p>
+ * Instances are immutable and are shared between all requests served from the feed cache.
+ */
+public final class NearEarthObject {
+    private final String name;
+    private final float absoluteMagnitude;
+    private final float minimumDiameter;
+    private final float maximumDiameter;
+    private final boolean potentiallyHazardous;
+    private final float speed;
+    private final float missDistance;
+    private final String orbitingBody;
+
+    /**
+     * Returns a new builder instance used to construct a new {@code NearEarthObject}.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Private constructor to return a new {@code NearEarthObject} from a {@code Builder}.
+     *
+     * @param builder
+     *            the builder used to construct the {@code NearEarthObject}.
+     */
+    private NearEarthObject(final Builder builder) {
+        name = builder.name;
+        absoluteMagnitude = builder.absoluteMagnitude;
+        minimumDiameter = builder.minimumDiameter;
+        maximumDiameter = builder.maximumDiameter;
+        potentiallyHazardous = builder.potentiallyHazardous;
+        speed = builder.speed;
+        missDistance = builder.missDistance;
+        // Only a handful of distinct bodies exist, share a single instance of each
+        orbitingBody = builder.orbitingBody != null ? builder.orbitingBody.intern() : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public float getAbsoluteMagnitude() {
+        return absoluteMagnitude;
+    }
+
+    public float getMinimumDiameter() {
+        return minimumDiameter;
+    }
+
+    public float getMaximumDiameter() {
+        return maximumDiameter;
+    }
+
+    public boolean isPotentiallyHazardous() {
+        return potentiallyHazardous;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public float getMissDistance() {
+        return missDistance;
+    }
+
+    public String getOrbitingBody() {
+        return orbitingBody;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof NearEarthObject)) {
+            return false;
+        }
+
+        NearEarthObject other = (NearEarthObject) obj;
+        return Float.compare(absoluteMagnitude, other.absoluteMagnitude) == 0
+                && Float.compare(minimumDiameter, other.minimumDiameter) == 0
+                && Float.compare(maximumDiameter, other.maximumDiameter) == 0
+                && potentiallyHazardous == other.potentiallyHazardous
+                && Float.compare(speed, other.speed) == 0
+                && Float.compare(missDistance, other.missDistance) == 0
+                && Objects.equals(name, other.name)
+                && Objects.equals(orbitingBody, other.orbitingBody);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, absoluteMagnitude, minimumDiameter, maximumDiameter,
+                potentiallyHazardous, speed, missDistance, orbitingBody);
+    }
+
+    @Override
+    public String toString() {
+        return "NearEarthObject[name=" + name + ", absoluteMagnitude=" + absoluteMagnitude
+                + ", minimumDiameter=" + minimumDiameter + ", maximumDiameter=" + maximumDiameter
+                + ", potentiallyHazardous=" + potentiallyHazardous + ", speed=" + speed
+                + ", missDistance=" + missDistance + ", orbitingBody=" + orbitingBody + "]";
+    }
+
+    /**
+     * Builder used to construct a new {@code NearEarthObject}.
+     */
+    public static final class Builder {
+        private String name;
+        private float absoluteMagnitude;
+        private float minimumDiameter;
+        private float maximumDiameter;
+        private boolean potentiallyHazardous;
+        private float speed;
+        private float missDistance;
+        private String orbitingBody;
+
+        private Builder() {
+        }
+
+        public Builder withName(final String name) {
+            this.name = name;
+            return this;
+        }
+
+        public Builder withAbsoluteMagnitude(final float absoluteMagnitude) {
+            this.absoluteMagnitude = absoluteMagnitude;
+            return this;
+        }
+
+        public Builder withMinimumDiameter(final float minimumDiameter) {
+            this.minimumDiameter = minimumDiameter;
+            return this;
+        }
+
+        public Builder withMaximumDiameter(final float maximumDiameter) {
+            this.maximumDiameter = maximumDiameter;
+            return this;
+        }
+
+        public Builder withPotentiallyHazardous(final boolean potentiallyHazardous) {
+            this.potentiallyHazardous = potentiallyHazardous;
+            return this;
+        }
+
+        public Builder withSpeed(final float speed) {
+            this.speed = speed;
+            return this;
+        }
+
+        public Builder withMissDistance(final float missDistance) {
+            this.missDistance = missDistance;
+            return this;
+        }
+
+        public Builder withOrbitingBody(final String orbitingBody) {
+            this.orbitingBody = orbitingBody;
+            return this;
+        }
+
+        public NearEarthObject build() {
+            return new NearEarthObject(this);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+    Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package asteroidtracker;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLContexts;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Client of the NeoWs feed API, keeping its connections to NeoWs open between calls.
+ * <p>
+ * A single client is meant to be shared by every request of a host or warm Lambda container, so
+ * that only the first call pays for the TCP and TLS handshakes. Each response is read to the end,
+ * which is what lets its connection go back to the pool. The number of calls and the number of
+ * connections opened for them are counted, their ratio being the connection reuse rate.
+ * <p>
+ * This class is thread-safe.
+ */
+public class NeoWsClient {
+    /**
+     * URL of the NeoWs feed API.
+     */
+    private static final String URL_PREFIX = "https://api.nasa.gov/neo/rest/v1/feed?";
+    private static final String URL_START_DATE = "start_date=";
+    private static final String URL_END_DATE = "&end_date=";
+    private static final String URL_POSTFIX = "&detailed=false&api_key=DEMO_KEY";
+
+    /**
+     * Maximum number of connections kept open to NeoWs.
+     */
+    private static final int MAX_CONNECTIONS = 16;
+
+    private final CloseableHttpClient httpClient;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong connectionCount = new AtomicLong();
+
+    /**
+     * @param timeoutMillis
+     *            connect and read timeout, in milliseconds, of a call, also bounding the wait for
+     *            a pooled connection
+     */
+    public NeoWsClient(final int timeoutMillis) {
+        Registry<ConnectionSocketFactory> socketFactories =
+                RegistryBuilder.<ConnectionSocketFactory>create()
+                        .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                        .register("https", new CountingSSLConnectionSocketFactory())
+                        .build();
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(socketFactories);
+        connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS);
+        // The request config's socket timeout only applies once connected, this one also bounds
+        // the TLS handshake
+        connectionManager.setDefaultSocketConfig(SocketConfig
+                .custom()
+                .setSoTimeout(timeoutMillis)
+                .build());
+
+        httpClient = HttpClients
+                .custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig
+                        .custom()
+                        .setConnectTimeout(timeoutMillis)
+                        .setSocketTimeout(timeoutMillis)
+                        .setConnectionRequestTimeout(timeoutMillis)
+                        .build())
+                .build();
+    }
+
+    /**
+     * Fetches and parses the NeoWs feed for the provided date.
+     *
+     * @param date
+     *            the date to get events for, example: 2015-07-04
+     * @return the near earth objects for that date
+     * @throws IOException
+     *             if the NeoWs API can't be reached, times out or returns an unexpected document
+     */
+    public List<NearEarthObject> fetch(final String date) throws IOException {
+        requestCount.incrementAndGet();
+        HttpGet request =
+                new HttpGet(URL_PREFIX + URL_START_DATE + date + URL_END_DATE + date + URL_POSTFIX);
+        try (CloseableHttpResponse response = httpClient.execute(request)) {
+            HttpEntity entity = response.getEntity();
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != HttpStatus.SC_OK || entity == null) {
+                EntityUtils.consumeQuietly(entity);
+                throw new IOException("NeoWs returned status " + statusCode);
+            }
+
+            try {
+                return NeoWsFeedParser.parse(new JsonReader(new InputStreamReader(
+                        entity.getContent(), StandardCharsets.UTF_8)), date);
+            } catch (IllegalStateException | NumberFormatException e) {
+                throw new IOException("Unexpected NeoWs feed format", e);
+            } finally {
+                // The parser may stop before the end of the document, read the rest so that the
+                // connection can be reused
+                EntityUtils.consumeQuietly(entity);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of calls made.
+     *
+     * @return the request count
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the number of connections opened to NeoWs.
+     *
+     * @return the connection count
+     */
+    public long getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Closes the pooled connections.
+     *
+     * @throws IOException
+     *             if a connection can't be closed
+     */
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("NeoWsClient[requests=%d, connections=%d]", getRequestCount(),
+                getConnectionCount());
+    }
+
+    /**
+     * Counts the connections opened by the pool.
+     */
+    private final class CountingSSLConnectionSocketFactory extends SSLConnectionSocketFactory {
+        private CountingSSLConnectionSocketFactory() {
+            super(SSLContexts.createDefault(),
+                    SSLConnectionSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+        }
+
+        @Override
+        public Socket connectSocket(final int connectTimeout, final Socket socket,
+                final HttpHost host, final InetSocketAddress remoteAddress,
+                final InetSocketAddress localAddress, final HttpContext context)
+                throws IOException {
+            connectionCount.incrementAndGet();
+            return super.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress,
+                    context);
+        }
+    }
+}
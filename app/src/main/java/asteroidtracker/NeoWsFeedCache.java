@@ -0,0 +1,215 @@
+/**
+    Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package asteroidtracker;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, in-process cache of parsed NeoWs feed results keyed by date ({@code yyyy-MM-dd}).
+ * <p>
+ * Entries are evicted either when they are older than their time to live or, once the cache is
+ * full, in least recently used order. The feed for a past date no longer changes, so those
+ * entries get a long time to live; today's and future dates are still being refined upstream and
+ * get a short one.
+ * <p>
+ * This class is thread-safe.
+ */
+public class NeoWsFeedCache {
+    /**
+     * Default maximum number of dates kept in the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    /**
+     * Default time to live for dates before today.
+     */
+    public static final long DEFAULT_PAST_TTL_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * Default time to live for today and future dates.
+     */
+    public static final long DEFAULT_CURRENT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final int maximumSize;
+    private final long pastTtlMillis;
+    private final long currentTtlMillis;
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public NeoWsFeedCache() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_PAST_TTL_MILLIS, DEFAULT_CURRENT_TTL_MILLIS);
+    }
+
+    /**
+     * @param maximumSize
+     *            the maximum number of dates to keep
+     * @param pastTtlMillis
+     *            time to live, in milliseconds, of entries for dates before today
+     * @param currentTtlMillis
+     *            time to live, in milliseconds, of entries for today and future dates
+     */
+    public NeoWsFeedCache(final int maximumSize, final long pastTtlMillis,
+            final long currentTtlMillis) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+
+        this.maximumSize = maximumSize;
+        this.pastTtlMillis = pastTtlMillis;
+        this.currentTtlMillis = currentTtlMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                if (size() > NeoWsFeedCache.this.maximumSize) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached near earth objects for the provided date, or {@code null} if there is no
+     * entry or the entry has expired.
+     *
+     * @param date
+     *            the date, formatted as {@code yyyy-MM-dd}
+     * @return the cached near earth objects or {@code null}
+     */
+    public List<NearEarthObject> get(final String date) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(date);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hitCount.incrementAndGet();
+                    return entry.nearEarthObjects;
+                }
+
+                entries.remove(date);
+                evictionCount.incrementAndGet();
+            }
+        }
+
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches the near earth objects for the provided date. Empty results are never cached, since
+     * they are what a failed NeoWs call produces.
+     *
+     * @param date
+     *            the date, formatted as {@code yyyy-MM-dd}
+     * @param nearEarthObjects
+     *            the near earth objects parsed for that date
+     */
+    public void put(final String date, final List<NearEarthObject> nearEarthObjects) {
+        if (nearEarthObjects == null || nearEarthObjects.isEmpty()) {
+            return;
+        }
+
+        long expiresAt = System.currentTimeMillis() + ttlMillis(date);
+        Entry entry = new Entry(Collections.unmodifiableList(nearEarthObjects), expiresAt);
+        synchronized (entries) {
+            entries.put(date, entry);
+        }
+    }
+
+    /**
+     * Removes all entries from the cache. The counters are left untouched.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of entries currently held, including any that have expired but have not
+     * yet been evicted.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the number of lookups that found a live entry.
+     *
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups that found no entry or an expired one.
+     *
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the number of entries removed because they expired or the cache was full.
+     *
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the time to live for the provided date. Dates that can't be parsed are treated as
+     * current.
+     */
+    private long ttlMillis(final String date) {
+        try {
+            return LocalDate.parse(date).isBefore(LocalDate.now()) ? pastTtlMillis
+                    : currentTtlMillis;
+        } catch (DateTimeParseException e) {
+            return currentTtlMillis;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("NeoWsFeedCache[size=%d, hits=%d, misses=%d, evictions=%d]", size(),
+                getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    private static final class Entry {
+        private final List<NearEarthObject> nearEarthObjects;
+        private final long expiresAt;
+
+        private Entry(final List<NearEarthObject> nearEarthObjects, final long expiresAt) {
+            this.nearEarthObjects = nearEarthObjects;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
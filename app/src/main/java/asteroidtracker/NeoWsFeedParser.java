@@ -0,0 +1,161 @@
+/**
+    Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package asteroidtracker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Streaming parser for the NeoWs feed ({@code /neo/rest/v1/feed}) document.
+ * <p>
+ * Only the fields modeled by {@link NearEarthObject} are read; everything else in the document
+ * (links, other units, additional close approaches) is skipped without being materialized.
+ */
+public final class NeoWsFeedParser {
+    private NeoWsFeedParser() {
+    }
+
+    /**
+     * Parse the near earth objects listed for a certain date in the feed, as the document is read.
+     *
+     * @param reader
+     *            the reader positioned at the start of the NeoWs feed document
+     * @param date
+     *            the date the feed was requested for, example: 2015-07-04
+     * @return the near earth objects for that date, in feed order
+     * @throws IOException
+     *             if the document can't be read
+     */
+    public static List<NearEarthObject> parse(final JsonReader reader, final String date)
+            throws IOException {
+        List<NearEarthObject> nearEarthObjects = new ArrayList<NearEarthObject>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("near_earth_objects".equals(reader.nextName())) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (date.equals(reader.nextName())) {
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            nearEarthObjects.add(parseNearEarthObject(reader));
+                        }
+                        reader.endArray();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return nearEarthObjects;
+    }
+
+    /**
+     * Read a single near earth object from the feed.
+     *
+     * @param reader
+     *            the reader positioned at the start of the near earth object
+     * @return the near earth object
+     * @throws IOException
+     *             if the object can't be read
+     */
+    private static NearEarthObject parseNearEarthObject(final JsonReader reader)
+            throws IOException {
+        NearEarthObject.Builder builder = NearEarthObject.builder();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("name".equals(name)) {
+                builder.withName(reader.nextString());
+            } else if ("absolute_magnitude_h".equals(name)) {
+                builder.withAbsoluteMagnitude((float) reader.nextDouble());
+            } else if ("estimated_diameter".equals(name)) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("kilometers".equals(reader.nextName())) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            String diameterName = reader.nextName();
+                            if ("estimated_diameter_min".equals(diameterName)) {
+                                builder.withMinimumDiameter((float) reader.nextDouble());
+                            } else if ("estimated_diameter_max".equals(diameterName)) {
+                                builder.withMaximumDiameter((float) reader.nextDouble());
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else if ("is_potentially_hazardous_asteroid".equals(name)) {
+                builder.withPotentiallyHazardous(reader.nextBoolean());
+            } else if ("close_approach_data".equals(name)) {
+                reader.beginArray();
+                if (reader.hasNext()) {
+                    // Only the first close approach is spoken
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String approachName = reader.nextName();
+                        if ("relative_velocity".equals(approachName)) {
+                            builder.withSpeed(readFloat(reader, "kilometers_per_hour"));
+                        } else if ("miss_distance".equals(approachName)) {
+                            builder.withMissDistance(readFloat(reader, "kilometers"));
+                        } else if ("orbiting_body".equals(approachName)) {
+                            builder.withOrbitingBody(reader.nextString());
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                while (reader.hasNext()) {
+                    reader.skipValue();
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return builder.build();
+    }
+
+    /**
+     * Read the named member of the object the reader is positioned at as a float, skipping all
+     * other members. NeoWs quotes most of its numbers, which the reader accepts.
+     */
+    private static float readFloat(final JsonReader reader, final String memberName)
+            throws IOException {
+        float value = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (memberName.equals(reader.nextName())) {
+                value = (float) reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return value;
+    }
+}
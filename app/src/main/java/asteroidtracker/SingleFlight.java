@@ -0,0 +1,120 @@
+/**
+    Copyright 2014-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific language governing permissions and limitations under the License.
+ */
+package asteroidtracker;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent calls for the same key so that only one of them runs the loader, while the
+ * others wait for and share its result.
+ * <p>
+ * The first caller for a key becomes the leader and runs the loader on its own thread. Callers
+ * arriving while the load is in flight wait up to the provided timeout for the leader's result.
+ * The in-flight entry is removed as soon as the load completes, successfully or not, so a failure
+ * or a timeout is only seen by the callers of that one flight and never by later ones. A caller
+ * that missed a cache just before a flight filled it may therefore lead a new flight, so a loader
+ * filling a cache should check that cache again first.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the value type
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight =
+            new ConcurrentHashMap<K, CompletableFuture<V>>();
+
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong sharedCount = new AtomicLong();
+
+    /**
+     * Returns the value for the provided key, running the loader only if no other load for that
+     * key is currently in flight.
+     *
+     * @param key
+     *            the key to load
+     * @param loader
+     *            loads the value; only invoked by the leader
+     * @param timeout
+     *            how long a waiting caller waits for the leader's result
+     * @param unit
+     *            the unit of {@code timeout}
+     * @return the loaded value
+     * @throws ExecutionException
+     *             if the loader threw an exception, available as the cause
+     * @throws TimeoutException
+     *             if this caller was waiting on another caller's load and it did not complete in
+     *             time
+     * @throws InterruptedException
+     *             if this caller was interrupted while waiting
+     */
+    public V execute(final K key, final Callable<V> loader, final long timeout,
+            final TimeUnit unit) throws ExecutionException, TimeoutException, InterruptedException {
+        CompletableFuture<V> flight = new CompletableFuture<V>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+
+        if (existing != null) {
+            sharedCount.incrementAndGet();
+            return existing.get(timeout, unit);
+        }
+
+        loadCount.incrementAndGet();
+        try {
+            V value = loader.call();
+            flight.complete(value);
+            return value;
+        } catch (Exception e) {
+            flight.completeExceptionally(e);
+            throw new ExecutionException(e);
+        } catch (Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Returns the number of loads currently in flight.
+     *
+     * @return the number of in-flight loads
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Returns the number of times a loader was run.
+     *
+     * @return the load count
+     */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    /**
+     * Returns the number of calls that waited on another caller's load instead of running their
+     * own.
+     *
+     * @return the shared count
+     */
+    public long getSharedCount() {
+        return sharedCount.get();
+    }
+}
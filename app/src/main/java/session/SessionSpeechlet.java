@@ -18,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import com.amazon.speech.slu.Intent;
 import com.amazon.speech.slu.Slot;
 import com.amazon.speech.speechlet.IntentRequest;
+import com.amazon.speech.speechlet.IntentRouter;
 import com.amazon.speech.speechlet.LaunchRequest;
 import com.amazon.speech.speechlet.Session;
 import com.amazon.speech.speechlet.SessionEndedRequest;
@@ -38,6 +39,9 @@ public class SessionSpeechlet implements Speechlet {
 
     private static final String COLOR_KEY = "COLOR";
     private static final String COLOR_SLOT = "Color";
+    private static final String INTENT_SCHEMA = "speechAssets/IntentSchema.json";
+
+    private final IntentRouter intentRouter = createIntentRouter();
 
     @Override
     public void onSessionStarted(final SessionStartedRequest request, final Session session)
@@ -61,19 +65,9 @@ public class SessionSpeechlet implements Speechlet {
         log.info("onIntent requestId={}, sessionId={}", request.getRequestId(),
                 session.getSessionId());
 
-        // Get intent from the request object.
-        Intent intent = request.getIntent();
-        String intentName = (intent != null) ? intent.getName() : null;
-
         // Note: If the session is started with an intent, no welcome message will be rendered;
         // rather, the intent specific response will be returned.
-        if ("MyColorIsIntent".equals(intentName)) {
-            return setColorInSession(intent, session);
-        } else if ("WhatsMyColorIntent".equals(intentName)) {
-            return getColorFromSession(intent, session);
-        } else {
-            throw new SpeechletException("Invalid Intent");
-        }
+        return intentRouter.route(request, session);
     }
 
     @Override
@@ -84,6 +78,36 @@ public class SessionSpeechlet implements Speechlet {
         // any cleanup logic goes here
     }
 
+    /**
+     * Creates the router for the intents in {@code speechAssets/IntentSchema.json}. Unknown
+     * intents get the welcome message.
+     *
+     * @return the intent router
+     */
+    private IntentRouter createIntentRouter() {
+        return IntentRouter.builder()
+                .withIntentHandler("MyColorIsIntent", new IntentRouter.IntentHandler() {
+                    @Override
+                    public SpeechletResponse handle(IntentRequest request, Session session) {
+                        return setColorInSession(request.getIntent(), session);
+                    }
+                })
+                .withIntentHandler("WhatsMyColorIntent", new IntentRouter.IntentHandler() {
+                    @Override
+                    public SpeechletResponse handle(IntentRequest request, Session session) {
+                        return getColorFromSession(request.getIntent(), session);
+                    }
+                })
+                .withFallbackHandler(new IntentRouter.IntentHandler() {
+                    @Override
+                    public SpeechletResponse handle(IntentRequest request, Session session) {
+                        return getWelcomeResponse();
+                    }
+                })
+                .withIntentSchemaResource(getClass(), INTENT_SCHEMA)
+                .build();
+    }
+
     /**
      * Creates and returns a {@code SpeechletResponse} with a welcome message.
      *
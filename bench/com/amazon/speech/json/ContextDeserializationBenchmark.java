@@ -0,0 +1,66 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazon.speech.speechlet.Context;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+/**
+ * Compares reading a context with the streaming {@link ContextDeserializer} and
+ * {@link SupportedInterfacesDeserializer} against reading it as a tree and converting each
+ * interface, as the SDK used to. Run with {@code -Djmh.args="-prof gc"} for the bytes allocated
+ * per read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContextDeserializationBenchmark {
+    private static final byte[] CONTEXT = ("{\"AudioPlayer\":{\"token\":\"track1\","
+            + "\"offsetInMilliseconds\":1500,\"playerActivity\":\"PLAYING\"},"
+            + "\"System\":{\"application\":{\"applicationId\":\"amzn1.ask.skill.application1\"},"
+            + "\"user\":{\"userId\":\"amzn1.ask.account.user1\",\"accessToken\":\"token1\"},"
+            + "\"device\":{\"supportedInterfaces\":{\"AudioPlayer\":{}}}}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectReader streamingReader =
+            ContextDeserializerTest.mapper().reader(Context.class);
+    private final ObjectReader treeReader =
+            ContextDeserializerTest.treeMapper().reader(Context.class);
+
+    @Benchmark
+    public Context streaming() throws Exception {
+        return streamingReader.readValue(CONTEXT);
+    }
+
+    @Benchmark
+    public Context tree() throws Exception {
+        return treeReader.readValue(CONTEXT);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.json;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazon.speech.speechlet.SpeechletResponse;
+import com.amazon.speech.ui.PlainTextOutputSpeech;
+import com.amazon.speech.ui.Reprompt;
+import com.amazon.speech.ui.SimpleCard;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares reading and writing the envelopes through a mapper looking up the root type on every
+ * call, as the SDK used to, against the envelopes' own bound reader and streaming writer. See
+ * {@link EnvelopeWithBytecodeAccessorsBenchmark} for the same with Afterburner's bytecode
+ * accessors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvelopeBenchmark {
+    private static final byte[] REQUEST = ("{\"version\":\"1.0\",\"session\":{\"new\":false,"
+            + "\"sessionId\":\"amzn1.echo-api.session.1\","
+            + "\"application\":{\"applicationId\":\"amzn1.ask.skill.1\"},"
+            + "\"attributes\":{\"cursor\":\"2016-01-01:3\",\"count\":3},"
+            + "\"user\":{\"userId\":\"amzn1.ask.account.1\"}},"
+            + "\"context\":{\"System\":{\"application\":{\"applicationId\":\"amzn1.ask.skill.1\"},"
+            + "\"user\":{\"userId\":\"amzn1.ask.account.1\"},"
+            + "\"device\":{\"supportedInterfaces\":{\"AudioPlayer\":{}}}},"
+            + "\"AudioPlayer\":{\"playerActivity\":\"IDLE\"}},"
+            + "\"request\":{\"type\":\"IntentRequest\",\"requestId\":\"amzn1.echo-api.request.1\","
+            + "\"timestamp\":\"2016-01-01T12:00:00Z\",\"locale\":\"en-US\","
+            + "\"intent\":{\"name\":\"GetAsteroidsIntent\","
+            + "\"slots\":{\"Date\":{\"name\":\"Date\",\"value\":\"2016-01-01\"}}}}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper requestMapper;
+    private ObjectMapper responseMapper;
+    private SpeechletResponseEnvelope responseEnvelope;
+
+    @Setup
+    public void setUp() {
+        requestMapper = new ObjectMapper();
+        requestMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        requestMapper.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
+        requestMapper.registerModule(new SpeechletRequestModule());
+        BytecodeAccessors.registerIfEnabled(requestMapper);
+
+        responseMapper = new ObjectMapper();
+        responseMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        BytecodeAccessors.registerIfEnabled(responseMapper);
+
+        PlainTextOutputSpeech outputSpeech = new PlainTextOutputSpeech();
+        outputSpeech.setText("Three asteroids pass the earth on January first. Want more?");
+        PlainTextOutputSpeech repromptSpeech = new PlainTextOutputSpeech();
+        repromptSpeech.setText("Do you want to hear about more asteroids?");
+        Reprompt reprompt = new Reprompt();
+        reprompt.setOutputSpeech(repromptSpeech);
+        SimpleCard card = new SimpleCard();
+        card.setTitle("Asteroids on 2016-01-01");
+        card.setContent("2016 AB, 2015 XY1 and 433 Eros");
+        SpeechletResponse response = SpeechletResponse.newAskResponse(outputSpeech, reprompt, card);
+
+        Map<String, Object> sessionAttributes = new HashMap<String, Object>();
+        sessionAttributes.put("cursor", "2016-01-01:6");
+        responseEnvelope = new SpeechletResponseEnvelope();
+        responseEnvelope.setVersion("1.0");
+        responseEnvelope.setResponse(response);
+        responseEnvelope.setSessionAttributes(sessionAttributes);
+    }
+
+    @Benchmark
+    public Object readWithMapper() throws Exception {
+        return requestMapper.readValue(REQUEST, SpeechletRequestEnvelope.class);
+    }
+
+    @Benchmark
+    public Object readWithEnvelopeReader() throws Exception {
+        return SpeechletRequestEnvelope.fromJson(REQUEST);
+    }
+
+    @Benchmark
+    public byte[] writeWithMapper() throws Exception {
+        return responseMapper.writeValueAsBytes(responseEnvelope);
+    }
+
+    @Benchmark
+    public byte[] writeWithEnvelopeWriter() throws Exception {
+        return responseEnvelope.toJsonBytes();
+    }
+}
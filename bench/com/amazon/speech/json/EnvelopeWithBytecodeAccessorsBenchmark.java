@@ -0,0 +1,26 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.json;
+
+import org.openjdk.jmh.annotations.Fork;
+
+import com.amazon.speech.Sdk;
+
+/**
+ * {@link EnvelopeBenchmark} with {@link Sdk#BYTECODE_ACCESSORS_SYSTEM_PROPERTY} set, so that every
+ * mapper uses the bytecode accessors of Afterburner.
+ */
+@Fork(value = 1, jvmArgsAppend = "-D" + Sdk.BYTECODE_ACCESSORS_SYSTEM_PROPERTY + "=true")
+public class EnvelopeWithBytecodeAccessorsBenchmark extends EnvelopeBenchmark {
+}
@@ -0,0 +1,92 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.binary.Base64;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazon.speech.Sdk;
+
+/**
+ * Compares verifying a request signature with a new {@link Signature} per request, as the
+ * verifier used to, against {@link SignatureVerificationEngine}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureVerificationBenchmark {
+    private KeyPair keyPair;
+    private byte[] request;
+    private String signature;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        keyPair = keyPairGenerator.generateKeyPair();
+
+        char[] text = new char[2048];
+        Arrays.fill(text, 'a');
+        request = ("{\"version\":\"1.0\",\"text\":\"" + new String(text) + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        Signature signer = Signature.getInstance(Sdk.SIGNATURE_ALGORITHM);
+        signer.initSign(keyPair.getPrivate());
+        signer.update(request);
+        signature = Base64.encodeBase64String(signer.sign());
+    }
+
+    @Benchmark
+    public boolean newSignaturePerRequest() throws Exception {
+        Signature verifier = Signature.getInstance(Sdk.SIGNATURE_ALGORITHM);
+        verifier.initVerify(keyPair.getPublic());
+        verifier.update(request);
+        return verifier.verify(Base64.decodeBase64(signature.getBytes(Sdk.CHARACTER_ENCODING)));
+    }
+
+    @Benchmark
+    public boolean pooledEngine() throws Exception {
+        return SignatureVerificationEngine.verify(keyPair.getPublic(), request, 0,
+                request.length, signature);
+    }
+
+    @Benchmark
+    public byte[] decodeWithCommonsCodec() throws Exception {
+        return Base64.decodeBase64(signature.getBytes(Sdk.CHARACTER_ENCODING));
+    }
+
+    @Benchmark
+    public byte[] decodeWithMimeDecoder() {
+        return java.util.Base64.getMimeDecoder().decode(signature);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.servlet;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * Open-loop load driver finding the highest request rate a speechlet endpoint sustains within a
+ * p99 latency budget.
+ * <p>
+ * Requests are sent at a fixed rate, each on a thread of its own, and their latency is measured
+ * from the time they were due rather than sent, so that a server falling behind isn't hidden by a
+ * client slowing down with it. The rate is raised step by step until the p99 latency exceeds the
+ * budget or more than 1% of the requests fail.
+ * <p>
+ * Usage, hosting {@link UpstreamLatencySpeechlet} in the app's Launcher, with or without
+ * {@code -Dlauncher.virtualThreads=true}, and the benchmark classes built with
+ * {@code mvn -Pbenchmarks test-compile}:
+ *
+ * <pre>
+ * java -cp app/target/classes:target/test-classes:... \
+ *     -Dlauncher.skills=sleep=com.amazon.speech.speechlet.servlet.UpstreamLatencySpeechlet \
+ *     -Dcom.amazon.speech.speechlet.servlet.disableRequestSignatureCheck=true \
+ *     -Djavax.net.ssl.keyStore=... -Djavax.net.ssl.keyStorePassword=... Launcher
+ * java -cp target/test-classes com.amazon.speech.speechlet.servlet.LoadDriver \
+ *     https://localhost:8888/sleep p99BudgetMillis firstRate rateStep maxRate secondsPerStep
+ * </pre>
+ *
+ * The server's certificate is not checked, so that a self-signed one can be used.
+ */
+public final class LoadDriver {
+    private static final String REQUEST =
+            "{\"version\":\"1.0\",\"session\":{\"new\":false,\"sessionId\":\"session1\","
+                    + "\"application\":{\"applicationId\":\"application1\"},"
+                    + "\"user\":{\"userId\":\"user1\"}},"
+                    + "\"request\":{\"type\":\"IntentRequest\",\"requestId\":\"request1\","
+                    + "\"timestamp\":\"2016-01-01T00:00:00Z\","
+                    + "\"intent\":{\"name\":\"GetAsteroidsIntent\",\"slots\":{}}}}";
+
+    private LoadDriver() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        URL url = new URL(args[0]);
+        long p99BudgetMillis = Long.parseLong(args[1]);
+        int rate = Integer.parseInt(args[2]);
+        int rateStep = Integer.parseInt(args[3]);
+        int maxRate = Integer.parseInt(args[4]);
+        int secondsPerStep = Integer.parseInt(args[5]);
+
+        trustAllCertificates();
+        // Warms up the connections and the server
+        runStep(url, rate, secondsPerStep);
+
+        int sustained = 0;
+        for (; rate <= maxRate; rate += rateStep) {
+            StepResult result = runStep(url, rate, secondsPerStep);
+            System.out.printf("rate=%d achieved=%.0f p50=%dms p99=%dms errors=%d/%d%n", rate,
+                    result.achievedRate, result.p50Millis, result.p99Millis, result.errors,
+                    result.requests);
+            if (result.p99Millis > p99BudgetMillis || result.errors * 100 > result.requests) {
+                break;
+            }
+            sustained = rate;
+        }
+        System.out.printf("max sustained rate within p99 %dms: %d requests/s%n", p99BudgetMillis,
+                sustained);
+        System.exit(0);
+    }
+
+    private static StepResult runStep(final URL url, final int rate, final int seconds)
+            throws InterruptedException {
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<Long>());
+        final AtomicInteger errors = new AtomicInteger();
+        ExecutorService senders = Executors.newCachedThreadPool();
+
+        int requests = rate * seconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            final long due = start + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            senders.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!send(url)) {
+                        errors.incrementAndGet();
+                    }
+                    latencies.add(System.nanoTime() - due);
+                }
+            });
+        }
+        senders.shutdown();
+        senders.awaitTermination(1, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+
+        List<Long> sorted = new ArrayList<Long>(latencies);
+        Collections.sort(sorted);
+        StepResult result = new StepResult();
+        result.requests = requests;
+        result.errors = errors.get();
+        result.achievedRate = requests * 1e9 / elapsed;
+        result.p50Millis = TimeUnit.NANOSECONDS.toMillis(sorted.get(sorted.size() / 2));
+        result.p99Millis =
+                TimeUnit.NANOSECONDS.toMillis(sorted.get((int) (sorted.size() * 0.99)));
+        return result;
+    }
+
+    private static boolean send(final URL url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setConnectTimeout(10000);
+            connection.setReadTimeout(10000);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(REQUEST.getBytes(StandardCharsets.UTF_8));
+            }
+            int status = connection.getResponseCode();
+            InputStream in =
+                    status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (in != null) {
+                // Drains the response so that the connection is kept alive
+                byte[] buffer = new byte[4096];
+                while (in.read(buffer) >= 0) {
+                }
+                in.close();
+            }
+            return status == HttpURLConnection.HTTP_OK;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void trustAllCertificates() throws Exception {
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[] {
+            new X509TrustManager() {
+                @Override
+                public void checkClientTrusted(X509Certificate[] chain, String authType) {
+                }
+
+                @Override
+                public void checkServerTrusted(X509Certificate[] chain, String authType) {
+                }
+
+                @Override
+                public X509Certificate[] getAcceptedIssuers() {
+                    return new X509Certificate[0];
+                }
+            }
+        }, null);
+        HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
+        HttpsURLConnection.setDefaultHostnameVerifier(new HostnameVerifier() {
+            @Override
+            public boolean verify(String hostname, SSLSession session) {
+                return true;
+            }
+        });
+        System.setProperty("http.maxConnections", "1000");
+    }
+
+    private static final class StepResult {
+        private int requests;
+        private int errors;
+        private double achievedRate;
+        private long p50Millis;
+        private long p99Millis;
+    }
+}
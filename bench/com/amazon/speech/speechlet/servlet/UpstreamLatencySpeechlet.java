@@ -0,0 +1,70 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.servlet;
+
+import com.amazon.speech.json.SpeechletRequestEnvelope;
+import com.amazon.speech.speechlet.IntentRequest;
+import com.amazon.speech.speechlet.LaunchRequest;
+import com.amazon.speech.speechlet.SessionEndedRequest;
+import com.amazon.speech.speechlet.SessionStartedRequest;
+import com.amazon.speech.speechlet.SpeechletResponse;
+import com.amazon.speech.speechlet.SpeechletV2;
+import com.amazon.speech.ui.PlainTextOutputSpeech;
+
+/**
+ * Speechlet standing in for a skill that blocks on an upstream service, such as the NeoWs calls
+ * of the asteroid tracker, for {@link LoadDriver}. The latency is set in milliseconds with the
+ * {@value #LATENCY_PROPERTY} system property and defaults to 50.
+ */
+public class UpstreamLatencySpeechlet implements SpeechletV2 {
+    /**
+     * System property holding the simulated upstream latency, in milliseconds.
+     */
+    public static final String LATENCY_PROPERTY = "bench.upstreamLatencyMillis";
+
+    private final long latencyMillis = Long.getLong(LATENCY_PROPERTY, 50);
+
+    @Override
+    public void onSessionStarted(
+            final SpeechletRequestEnvelope<SessionStartedRequest> requestEnvelope) {
+    }
+
+    @Override
+    public SpeechletResponse onLaunch(
+            final SpeechletRequestEnvelope<LaunchRequest> requestEnvelope) {
+        return respond();
+    }
+
+    @Override
+    public SpeechletResponse onIntent(
+            final SpeechletRequestEnvelope<IntentRequest> requestEnvelope) {
+        return respond();
+    }
+
+    @Override
+    public void onSessionEnded(
+            final SpeechletRequestEnvelope<SessionEndedRequest> requestEnvelope) {
+    }
+
+    private SpeechletResponse respond() {
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PlainTextOutputSpeech outputSpeech = new PlainTextOutputSpeech();
+        outputSpeech.setText("Three asteroids pass the earth today.");
+        return SpeechletResponse.newTellResponse(outputSpeech);
+    }
+}
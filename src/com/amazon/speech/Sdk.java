@@ -220,6 +220,54 @@ public final class Sdk {
     public static final String TIMESTAMP_TOLERANCE_SYSTEM_PROPERTY =
             "com.amazon.speech.speechlet.servlet.timestampTolerance";
 
+    /**
+     * <p>
+     * The name of the system property that can be used to provide the path of a trust store used,
+     * instead of the default trust store of the JVM, to validate the certificate chains of the
+     * certificates requests are signed with. This allows testing offline against a locally
+     * generated certificate authority. The trust store is read once, using the default keystore
+     * type of the JVM.
+     * </p>
+     *
+     * <p>
+     * Your production system should use the default trust store.
+     * </p>
+     */
+    public static final String SIGNATURE_TRUST_STORE_SYSTEM_PROPERTY =
+            "com.amazon.speech.speechlet.authentication.trustStore";
+
+    /**
+     * The name of the system property that can be used to provide the password of the trust store
+     * configured with {@link #SIGNATURE_TRUST_STORE_SYSTEM_PROPERTY}, if it has one.
+     */
+    public static final String SIGNATURE_TRUST_STORE_PASSWORD_SYSTEM_PROPERTY =
+            "com.amazon.speech.speechlet.authentication.trustStorePassword";
+
+    /**
+     * The name of the system property that can be used to defer parsing the {@code context} of a
+     * request until it is first accessed. Most speechlets only use the request and the session, so
+     * in this mode the context is only indexed and copied when the request is read.
+     * <p>
+     * A context that isn't well-formed JSON still fails when the request is read, with an
+     * {@code IOException}. A context that is well-formed but cannot be bound, such as one with a
+     * string where a number is expected, only fails on first access, with an
+     * {@link IllegalStateException}. The servlet then answers such a request with a 500 rather
+     * than a 400.
+     * </p>
+     */
+    public static final String LAZY_CONTEXT_PARSING_SYSTEM_PROPERTY =
+            "com.amazon.speech.speechlet.lazyContextParsing";
+
+    /**
+     * The name of the system property that can be used to have the request and response envelopes
+     * access bean properties through generated bytecode rather than reflection. This requires the
+     * Jackson Afterburner module ({@code com.fasterxml.jackson.module:jackson-module-afterburner})
+     * on the classpath. The SDK declares it as an optional dependency, so an application using
+     * this mode declares it too; without it the property is ignored with a warning.
+     */
+    public static final String BYTECODE_ACCESSORS_SYSTEM_PROPERTY =
+            "com.amazon.speech.speechlet.bytecodeAccessors";
+
     private Sdk() {
     }
 }
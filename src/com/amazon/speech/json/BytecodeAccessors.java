@@ -0,0 +1,63 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.json;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazon.speech.Sdk;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Registers the Jackson Afterburner module, which replaces reflective bean property access with
+ * generated bytecode, when enabled with {@link Sdk#BYTECODE_ACCESSORS_SYSTEM_PROPERTY}.
+ * <p>
+ * The module is looked up by name so that it stays an optional dependency.
+ */
+final class BytecodeAccessors {
+    private static final Logger log = LoggerFactory.getLogger(BytecodeAccessors.class);
+
+    private static final String AFTERBURNER_MODULE_CLASS =
+            "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System
+            .getProperty(Sdk.BYTECODE_ACCESSORS_SYSTEM_PROPERTY));
+
+    private BytecodeAccessors() {
+    }
+
+    /**
+     * Registers the Afterburner module with the provided mapper if enabled and available. Must be
+     * called before any reader or writer is created from the mapper.
+     *
+     * @param objectMapper
+     *            the mapper to register the module with
+     */
+    static void registerIfEnabled(final ObjectMapper objectMapper) {
+        if (!ENABLED) {
+            return;
+        }
+
+        try {
+            objectMapper.registerModule((Module) Class.forName(AFTERBURNER_MODULE_CLASS)
+                    .getDeclaredConstructor().newInstance());
+        } catch (ClassNotFoundException e) {
+            log.warn("{} is set but {} is not on the classpath, using reflection",
+                    Sdk.BYTECODE_ACCESSORS_SYSTEM_PROPERTY, AFTERBURNER_MODULE_CLASS);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Failed to register {}, using reflection", AFTERBURNER_MODULE_CLASS, e);
+        }
+    }
+}
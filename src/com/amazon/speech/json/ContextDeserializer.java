@@ -18,11 +18,14 @@ import java.io.IOException;
 import com.amazon.speech.speechlet.Context;
 import com.amazon.speech.speechlet.State;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
+/**
+ * Reads the states of a context as they stream by, dispatching on their field names, without
+ * building an intermediate tree.
+ */
 class ContextDeserializer extends StdDeserializer<Context> {
     ContextDeserializer() {
         super(Context.class);
@@ -31,17 +34,23 @@ class ContextDeserializer extends StdDeserializer<Context> {
     @Override
     public Context deserialize(JsonParser parser, DeserializationContext context)
             throws IOException {
-        ObjectMapper underlyingMapper = ((ObjectMapper) parser.getCodec());
-        JsonNode messageNode = parser.readValueAsTree();
         Context.Builder contextBuilder = Context.builder();
 
-        for (SerializedInterface interfaceName : SerializedInterface.values()) {
-            if (messageNode.has(interfaceName.name())) {
-                State<?> state =
-                        underlyingMapper.convertValue(messageNode.get(interfaceName.name()),
-                                interfaceName.getStateClass());
-                contextBuilder.addState(state);
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            SerializedInterface interfaceName =
+                    SerializedInterface.forName(parser.getCurrentName());
+            if (parser.nextToken() == JsonToken.VALUE_NULL || interfaceName == null) {
+                parser.skipChildren();
+                continue;
             }
+
+            State<?> state = SerializedInterface.readValue(parser, context,
+                    interfaceName.<State<?>>getStateClass());
+            contextBuilder.addState(state);
         }
 
         return contextBuilder.build();
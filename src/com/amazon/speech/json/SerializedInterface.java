@@ -13,12 +13,20 @@
 
 package com.amazon.speech.json;
 
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import com.amazon.speech.speechlet.Interface;
 import com.amazon.speech.speechlet.State;
 import com.amazon.speech.speechlet.interfaces.audioplayer.AudioPlayerInterface;
 import com.amazon.speech.speechlet.interfaces.audioplayer.AudioPlayerState;
 import com.amazon.speech.speechlet.interfaces.system.SystemInterface;
 import com.amazon.speech.speechlet.interfaces.system.SystemState;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
 
 enum SerializedInterface {
     AudioPlayer(AudioPlayerInterface.class, AudioPlayerState.class),
@@ -33,6 +41,48 @@ enum SerializedInterface {
         this.stateClass = stateClass;
     }
 
+    private static final Map<String, SerializedInterface> BY_NAME;
+
+    static {
+        Map<String, SerializedInterface> byName = new HashMap<String, SerializedInterface>();
+        for (SerializedInterface serializedInterface : values()) {
+            byName.put(serializedInterface.name(), serializedInterface);
+        }
+        BY_NAME = Collections.unmodifiableMap(byName);
+    }
+
+    /**
+     * Returns the interface serialized under the provided field name.
+     *
+     * @param name
+     *            the field name
+     * @return the interface, or {@code null} if the name is unknown
+     */
+    static SerializedInterface forName(final String name) {
+        return BY_NAME.get(name);
+    }
+
+    /**
+     * Reads a value of the provided type starting at the current token of the parser, with the
+     * deserializer the context has resolved, and cached, for that type.
+     *
+     * @param parser
+     *            the parser, positioned on the first token of the value
+     * @param context
+     *            the deserialization context
+     * @param type
+     *            the type of the value
+     * @return the value
+     * @throws IOException
+     *             if the value can't be read
+     */
+    static <T> T readValue(final JsonParser parser, final DeserializationContext context,
+            final Class<T> type) throws IOException {
+        JsonDeserializer<Object> deserializer =
+                context.findRootValueDeserializer(context.constructType(type));
+        return type.cast(deserializer.deserialize(parser, context));
+    }
+
     protected <T extends Interface> Class<T> getInterfaceClass() {
         return (Class<T>) interfaceClass;
     }
@@ -15,14 +15,19 @@ package com.amazon.speech.json;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 import com.amazon.speech.Sdk;
 import com.amazon.speech.speechlet.Context;
 import com.amazon.speech.speechlet.Session;
 import com.amazon.speech.speechlet.SpeechletRequest;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 /**
  * Envelope to wrap the various parameters of a {@code SpeechletV2} invocation.
@@ -48,14 +53,32 @@ public class SpeechletRequestEnvelope<T extends SpeechletRequest> {
         OBJECT_MAPPER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
         OBJECT_MAPPER.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
         OBJECT_MAPPER.registerModule(new SpeechletRequestModule());
+        BytecodeAccessors.registerIfEnabled(OBJECT_MAPPER);
     }
 
+    /*
+     * Readers bound to their root type, so that the root deserializer is only looked up once
+     * rather than on every request.
+     */
+    private static final ObjectReader ENVELOPE_READER = OBJECT_MAPPER
+            .reader(SpeechletRequestEnvelope.class);
+    private static final ObjectReader SESSION_READER = OBJECT_MAPPER.reader(Session.class);
+    private static final ObjectReader REQUEST_READER = OBJECT_MAPPER.reader(SpeechletRequest.class);
+    private static final ObjectReader CONTEXT_READER = OBJECT_MAPPER.reader(Context.class);
+
+    /**
+     * Whether the context of requests read from bytes is parsed on first access.
+     */
+    private static final boolean LAZY_CONTEXT_PARSING = Boolean.parseBoolean(System
+            .getProperty(Sdk.LAZY_CONTEXT_PARSING_SYSTEM_PROPERTY));
+
     // ----------
     // Attributes
 
     private final String version;
     private final Session session;
-    private final Context context;
+    private volatile Context context;
+    private volatile byte[] serializedContext;
     private final T request;
 
     /**
@@ -100,6 +123,26 @@ public class SpeechletRequestEnvelope<T extends SpeechletRequest> {
         this.request = request;
     }
 
+    /**
+     * Private constructor for an envelope whose context is parsed on first access.
+     *
+     * @param version
+     *            the version of the request envelope
+     * @param session
+     *            the session
+     * @param serializedContext
+     *            the context as UTF-8 encoded JSON, or {@code null} if there is none
+     * @param request
+     *            the speechlet request
+     */
+    private SpeechletRequestEnvelope(final String version, final Session session,
+            final byte[] serializedContext, final T request) {
+        this.version = version;
+        this.session = session;
+        this.serializedContext = serializedContext;
+        this.request = request;
+    }
+
     // ---------
     // Accessors
 
@@ -126,10 +169,32 @@ public class SpeechletRequestEnvelope<T extends SpeechletRequest> {
 
     /**
      * Returns the context.
+     * <p>
+     * When the context is parsed lazily, see {@link Sdk#LAZY_CONTEXT_PARSING_SYSTEM_PROPERTY}, it
+     * is bound on the first call.
+     * </p>
      *
      * @return the context
+     * @throws IllegalStateException
+     *             if the context is parsed lazily and cannot be bound
      */
     public Context getContext() {
+        Context context = this.context;
+        if (context == null && serializedContext != null) {
+            context = parseContext();
+        }
+        return context;
+    }
+
+    private synchronized Context parseContext() {
+        if (serializedContext != null) {
+            try {
+                context = CONTEXT_READER.readValue(serializedContext);
+            } catch (IOException e) {
+                throw new IllegalStateException("The context of the request could not be read", e);
+            }
+            serializedContext = null;
+        }
         return context;
     }
 
@@ -156,7 +221,7 @@ public class SpeechletRequestEnvelope<T extends SpeechletRequest> {
      *             if deserialization fails
      */
     public static SpeechletRequestEnvelope<?> fromJson(final InputStream in) throws IOException {
-        return OBJECT_MAPPER.readValue(in, SpeechletRequestEnvelope.class);
+        return ENVELOPE_READER.readValue(in);
     }
 
     /**
@@ -170,7 +235,81 @@ public class SpeechletRequestEnvelope<T extends SpeechletRequest> {
      *             if deserialization fails.
      */
     public static SpeechletRequestEnvelope<?> fromJson(final byte[] json) throws IOException {
-        return OBJECT_MAPPER.readValue(json, SpeechletRequestEnvelope.class);
+        return fromJson(json, 0, json.length);
+    }
+
+    /**
+     * Read a {@code SpeechletRequestEnvelope} from a region of a byte array. The bytes must be
+     * UTF-8 encoded.
+     *
+     * @param json
+     *            the bytes to read from.
+     * @param offset
+     *            the offset of the first byte to read.
+     * @param length
+     *            the number of bytes to read.
+     * @return the envelope read from the bytes.
+     * @throws IOException
+     *             if deserialization fails.
+     */
+    public static SpeechletRequestEnvelope<?> fromJson(final byte[] json, final int offset,
+            final int length) throws IOException {
+        if (LAZY_CONTEXT_PARSING) {
+            return fromJsonWithLazyContext(json, offset, length);
+        }
+        return ENVELOPE_READER.readValue(json, offset, length);
+    }
+
+    /**
+     * Reads the version, session and request of the envelope, and only copies the bytes of its
+     * context, see {@link Sdk#LAZY_CONTEXT_PARSING_SYSTEM_PROPERTY}. The copy keeps the envelope
+     * independent of the provided bytes, which are typically a pooled buffer.
+     * <p>
+     * Skipping over the context still tokenizes it, so a context that isn't well-formed JSON fails
+     * here with an {@code IOException}, as it would when read eagerly.
+     * </p>
+     */
+    static SpeechletRequestEnvelope<?> fromJsonWithLazyContext(final byte[] json,
+            final int offset, final int length) throws IOException {
+        String version = null;
+        Session session = null;
+        byte[] serializedContext = null;
+        SpeechletRequest request = null;
+
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(json, offset, length)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonMappingException("Expected a request envelope object",
+                        parser.getCurrentLocation());
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("version".equals(fieldName)) {
+                    version = parser.getValueAsString();
+                } else if ("session".equals(fieldName)) {
+                    session = SESSION_READER.readValue(parser);
+                } else if ("request".equals(fieldName)) {
+                    request = REQUEST_READER.readValue(parser);
+                } else if ("context".equals(fieldName) && token == JsonToken.START_OBJECT) {
+                    // Locations are relative to the offset and just past the current token
+                    int start = offset + (int) parser.getCurrentLocation().getByteOffset() - 1;
+                    parser.skipChildren();
+                    int end = offset + (int) parser.getCurrentLocation().getByteOffset();
+                    if (start < offset || end > offset + length || json[start] != '{'
+                            || json[end - 1] != '}') {
+                        throw new JsonMappingException("Could not locate the context",
+                                parser.getCurrentLocation());
+                    }
+                    serializedContext = Arrays.copyOfRange(json, start, end);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return new SpeechletRequestEnvelope<SpeechletRequest>(version, session, serializedContext,
+                request);
     }
 
     /**
@@ -183,7 +322,7 @@ public class SpeechletRequestEnvelope<T extends SpeechletRequest> {
      *             if deserialization fails
      */
     public static SpeechletRequestEnvelope<?> fromJson(final String json) throws IOException {
-        return OBJECT_MAPPER.readValue(json, SpeechletRequestEnvelope.class);
+        return ENVELOPE_READER.readValue(json);
     }
 
     /**
@@ -15,10 +15,14 @@ package com.amazon.speech.json;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.StringWriter;
 import java.util.Map;
 
 import com.amazon.speech.speechlet.SpeechletResponse;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -34,8 +38,15 @@ public class SpeechletResponseEnvelope {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
     static {
         OBJECT_MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        BytecodeAccessors.registerIfEnabled(OBJECT_MAPPER);
     }
 
+    /**
+     * Writes envelopes with the output of {@code OBJECT_MAPPER}, without bean serialization.
+     */
+    private static final SpeechletResponseEnvelopeWriter ENVELOPE_WRITER =
+            new SpeechletResponseEnvelopeWriter(OBJECT_MAPPER);
+
     private String version;
     private SpeechletResponse response;
     private Map<String, Object> sessionAttributes;
@@ -110,7 +121,7 @@ public class SpeechletResponseEnvelope {
      *             if serialization fails
      */
     public void toJson(final OutputStream out) throws IOException {
-        OBJECT_MAPPER.writeValue(out, this);
+        write(OBJECT_MAPPER.getFactory().createGenerator(out, JsonEncoding.UTF8));
     }
 
     /**
@@ -122,7 +133,13 @@ public class SpeechletResponseEnvelope {
      *             if serialization fails
      */
     public byte[] toJsonBytes() throws IOException {
-        return OBJECT_MAPPER.writeValueAsBytes(this);
+        ByteArrayBuilder bytes = new ByteArrayBuilder();
+        try {
+            write(OBJECT_MAPPER.getFactory().createGenerator(bytes, JsonEncoding.UTF8));
+            return bytes.toByteArray();
+        } finally {
+            bytes.release();
+        }
     }
 
     /**
@@ -133,6 +150,24 @@ public class SpeechletResponseEnvelope {
      *             if serialization fails
      */
     public String toJsonString() throws IOException {
-        return OBJECT_MAPPER.writeValueAsString(this);
+        StringWriter writer = new StringWriter();
+        write(OBJECT_MAPPER.getFactory().createGenerator(writer));
+        return writer.toString();
+    }
+
+    /**
+     * Writes this envelope to the provided generator and closes it. Subclasses may add properties,
+     * so they go through the mapper rather than the envelope writer.
+     */
+    private void write(final JsonGenerator generator) throws IOException {
+        try {
+            if (getClass() == SpeechletResponseEnvelope.class) {
+                ENVELOPE_WRITER.write(this, generator);
+            } else {
+                OBJECT_MAPPER.writeValue(generator, this);
+            }
+        } finally {
+            generator.close();
+        }
     }
 }
@@ -0,0 +1,200 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.json;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.amazon.speech.speechlet.Directive;
+import com.amazon.speech.speechlet.SpeechletResponse;
+import com.amazon.speech.ui.Card;
+import com.amazon.speech.ui.Image;
+import com.amazon.speech.ui.LinkAccountCard;
+import com.amazon.speech.ui.OutputSpeech;
+import com.amazon.speech.ui.PlainTextOutputSpeech;
+import com.amazon.speech.ui.Reprompt;
+import com.amazon.speech.ui.SimpleCard;
+import com.amazon.speech.ui.SsmlOutputSpeech;
+import com.amazon.speech.ui.StandardCard;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes a {@link SpeechletResponseEnvelope} straight to a {@link JsonGenerator}, without going
+ * through bean serialization. The output is byte for byte what the provided mapper, configured
+ * with {@code NON_NULL} inclusion, produces for the envelope: the same properties in the same
+ * order, the type id first, and {@code null} values left out.
+ * <p>
+ * The response and the {@code com.amazon.speech.ui} types are written by hand. Directives, session
+ * attributes and any subclass this writer doesn't know about are handed to the mapper, so that
+ * their output doesn't change either.
+ * <p>
+ * This class is thread-safe.
+ */
+final class SpeechletResponseEnvelopeWriter {
+    private final ObjectWriter valueWriter;
+    private final ObjectWriter directivesWriter;
+    private final ObjectWriter sessionAttributesWriter;
+
+    /**
+     * @param objectMapper
+     *            the mapper whose output is reproduced, and to which the values this writer
+     *            doesn't handle are delegated
+     */
+    SpeechletResponseEnvelopeWriter(final ObjectMapper objectMapper) {
+        valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        directivesWriter = valueWriter.withType(new TypeReference<List<Directive>>() {
+        });
+        sessionAttributesWriter = valueWriter.withType(new TypeReference<Map<String, Object>>() {
+        });
+    }
+
+    /**
+     * Writes the provided envelope. The generator is neither flushed nor closed.
+     *
+     * @param envelope
+     *            the envelope to write
+     * @param generator
+     *            the generator to write to
+     * @throws IOException
+     *             if writing fails
+     */
+    void write(final SpeechletResponseEnvelope envelope, final JsonGenerator generator)
+            throws IOException {
+        generator.writeStartObject();
+        writeStringField(generator, "version", envelope.getVersion());
+        if (envelope.getResponse() != null) {
+            generator.writeFieldName("response");
+            writeResponse(envelope.getResponse(), generator);
+        }
+        if (envelope.getSessionAttributes() != null) {
+            generator.writeFieldName("sessionAttributes");
+            sessionAttributesWriter.writeValue(generator, envelope.getSessionAttributes());
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeResponse(final SpeechletResponse response, final JsonGenerator generator)
+            throws IOException {
+        if (response.getClass() != SpeechletResponse.class) {
+            valueWriter.writeValue(generator, response);
+            return;
+        }
+
+        generator.writeStartObject();
+        if (response.getOutputSpeech() != null) {
+            generator.writeFieldName("outputSpeech");
+            writeOutputSpeech(response.getOutputSpeech(), generator);
+        }
+        if (response.getCard() != null) {
+            generator.writeFieldName("card");
+            writeCard(response.getCard(), generator);
+        }
+        if (response.getDirectives() != null) {
+            generator.writeFieldName("directives");
+            directivesWriter.writeValue(generator, response.getDirectives());
+        }
+        if (response.getReprompt() != null) {
+            generator.writeFieldName("reprompt");
+            writeReprompt(response.getReprompt(), generator);
+        }
+        generator.writeBooleanField("shouldEndSession", response.getShouldEndSession());
+        generator.writeEndObject();
+    }
+
+    private void writeOutputSpeech(final OutputSpeech outputSpeech, final JsonGenerator generator)
+            throws IOException {
+        if (outputSpeech.getClass() == PlainTextOutputSpeech.class) {
+            generator.writeStartObject();
+            generator.writeStringField("type", "PlainText");
+            writeStringField(generator, "id", outputSpeech.getId());
+            writeStringField(generator, "text", ((PlainTextOutputSpeech) outputSpeech).getText());
+            generator.writeEndObject();
+        } else if (outputSpeech.getClass() == SsmlOutputSpeech.class) {
+            generator.writeStartObject();
+            generator.writeStringField("type", "SSML");
+            writeStringField(generator, "id", outputSpeech.getId());
+            writeStringField(generator, "ssml", ((SsmlOutputSpeech) outputSpeech).getSsml());
+            generator.writeEndObject();
+        } else {
+            valueWriter.writeValue(generator, outputSpeech);
+        }
+    }
+
+    private void writeCard(final Card card, final JsonGenerator generator) throws IOException {
+        if (card.getClass() == SimpleCard.class) {
+            generator.writeStartObject();
+            generator.writeStringField("type", "Simple");
+            writeStringField(generator, "title", card.getTitle());
+            writeStringField(generator, "content", ((SimpleCard) card).getContent());
+            generator.writeEndObject();
+        } else if (card.getClass() == StandardCard.class) {
+            StandardCard standardCard = (StandardCard) card;
+            generator.writeStartObject();
+            generator.writeStringField("type", "Standard");
+            writeStringField(generator, "title", card.getTitle());
+            writeStringField(generator, "text", standardCard.getText());
+            if (standardCard.getImage() != null) {
+                generator.writeFieldName("image");
+                writeImage(standardCard.getImage(), generator);
+            }
+            generator.writeEndObject();
+        } else if (card.getClass() == LinkAccountCard.class) {
+            generator.writeStartObject();
+            generator.writeStringField("type", "LinkAccount");
+            writeStringField(generator, "title", card.getTitle());
+            generator.writeEndObject();
+        } else {
+            valueWriter.writeValue(generator, card);
+        }
+    }
+
+    private void writeImage(final Image image, final JsonGenerator generator) throws IOException {
+        if (image.getClass() != Image.class) {
+            valueWriter.writeValue(generator, image);
+            return;
+        }
+
+        generator.writeStartObject();
+        writeStringField(generator, "smallImageUrl", image.getSmallImageUrl());
+        writeStringField(generator, "largeImageUrl", image.getLargeImageUrl());
+        generator.writeEndObject();
+    }
+
+    private void writeReprompt(final Reprompt reprompt, final JsonGenerator generator)
+            throws IOException {
+        if (reprompt.getClass() != Reprompt.class) {
+            valueWriter.writeValue(generator, reprompt);
+            return;
+        }
+
+        generator.writeStartObject();
+        if (reprompt.getOutputSpeech() != null) {
+            generator.writeFieldName("outputSpeech");
+            writeOutputSpeech(reprompt.getOutputSpeech(), generator);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeStringField(final JsonGenerator generator, final String fieldName,
+            final String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(fieldName, value);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.amazon.speech.json.SpeechletRequestEnvelope;
+
+/**
+ * <p>
+ * An asynchronous variant of {@link SpeechletV2}. Its methods return as soon as the work for the
+ * request has been started, with a {@link CompletableFuture} completed once the request has been
+ * handled.
+ * </p>
+ *
+ * <p>
+ * This lets a speechlet wait on upstream I/O, such as calls to other web services, without holding
+ * on to a thread of the container for the duration of the call. Hosted by a
+ * {@link com.amazon.speech.speechlet.servlet.SpeechletServlet} in a container supporting
+ * asynchronous servlets, the container thread is released until the future completes.
+ * </p>
+ *
+ * <p>
+ * A future completed exceptionally has the same effect as an exception thrown by the
+ * corresponding {@link SpeechletV2} method. Existing {@code SpeechletV2}s can be used wherever an
+ * {@code AsyncSpeechletV2} is expected through a {@link SpeechletV2ToAsyncSpeechletV2Adapter}.
+ * </p>
+ *
+ * @see SpeechletV2
+ */
+public interface AsyncSpeechletV2 {
+    /**
+     * Used to notify that a new session started as a result of a user interacting with the device.
+     * The request is only dispatched once the returned future has completed.
+     *
+     * @param requestEnvelope
+     *            the session started request envelope
+     * @return a future completed once the session is initialized
+     * @see SpeechletV2#onSessionStarted(SpeechletRequestEnvelope)
+     */
+    CompletableFuture<Void> onSessionStarted(
+            SpeechletRequestEnvelope<SessionStartedRequest> requestEnvelope);
+
+    /**
+     * Entry point for handling a speech initiated request to start the skill without providing an
+     * {@code Intent}.
+     *
+     * @param requestEnvelope
+     *            the launch request envelope
+     * @return a future of the response, spoken and visual, to the request
+     * @see SpeechletV2#onLaunch(SpeechletRequestEnvelope)
+     */
+    CompletableFuture<SpeechletResponse> onLaunch(
+            SpeechletRequestEnvelope<LaunchRequest> requestEnvelope);
+
+    /**
+     * Entry point for handling speech initiated requests.
+     *
+     * @param requestEnvelope
+     *            the intent request envelope to handle
+     * @return a future of the response, spoken and visual, to the request
+     * @see SpeechletV2#onIntent(SpeechletRequestEnvelope)
+     */
+    CompletableFuture<SpeechletResponse> onIntent(
+            SpeechletRequestEnvelope<IntentRequest> requestEnvelope);
+
+    /**
+     * Callback used to notify that the session ended as a result of the user interacting, or not
+     * interacting with the device.
+     *
+     * @param requestEnvelope
+     *            the end of session request envelope
+     * @return a future completed once the session is cleaned up
+     * @see SpeechletV2#onSessionEnded(SpeechletRequestEnvelope)
+     */
+    CompletableFuture<Void> onSessionEnded(
+            SpeechletRequestEnvelope<SessionEndedRequest> requestEnvelope);
+}
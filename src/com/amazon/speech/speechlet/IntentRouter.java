@@ -0,0 +1,278 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazon.speech.slu.Intent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Routes an {@link IntentRequest} to the handler registered for the name of its intent. The
+ * handlers are registered once, typically when the speechlet is constructed, and each request is
+ * routed with a single map lookup. Requests for intents without a handler go to the fallback
+ * handler.
+ * <p>
+ * When built with the skill's intent schema ({@code IntentSchema.json}), the router refuses
+ * handlers for intents the schema doesn't declare, so that a misspelled intent name is caught at
+ * startup instead of silently routing to the fallback handler.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+public final class IntentRouter {
+    private static final Logger log = LoggerFactory.getLogger(IntentRouter.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * Fallback handler used when none is provided, preserving the behavior of speechlets that
+     * throw on an unknown intent.
+     */
+    private static final IntentHandler INVALID_INTENT_HANDLER = new IntentHandler() {
+        @Override
+        public SpeechletResponse handle(IntentRequest request, Session session)
+                throws SpeechletException {
+            throw new SpeechletException("Invalid Intent");
+        }
+    };
+
+    private final Map<String, IntentHandler> handlers;
+    private final IntentHandler fallbackHandler;
+
+    /**
+     * Handles the requests for an intent.
+     */
+    public interface IntentHandler {
+        /**
+         * Handles the provided request.
+         *
+         * @param request
+         *            the intent request
+         * @param session
+         *            the session associated with the request
+         * @return the response, spoken and visual, to the request
+         * @throws SpeechletException
+         *             for any errors encountered in the processing of the request
+         */
+        SpeechletResponse handle(IntentRequest request, Session session)
+                throws SpeechletException;
+    }
+
+    /**
+     * Returns a new builder instance used to construct a new {@code IntentRouter}.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Private constructor to return a new {@code IntentRouter} from a {@code Builder}.
+     *
+     * @param builder
+     *            the builder used to construct the {@code IntentRouter}
+     */
+    private IntentRouter(final Builder builder) {
+        handlers = Collections.unmodifiableMap(new HashMap<String, IntentHandler>(builder.handlers));
+        fallbackHandler = builder.fallbackHandler;
+    }
+
+    /**
+     * Routes the provided request to the handler for its intent, or to the fallback handler.
+     *
+     * @param request
+     *            the intent request
+     * @param session
+     *            the session associated with the request
+     * @return the response of the handler
+     * @throws SpeechletException
+     *             if thrown by the handler
+     */
+    public SpeechletResponse route(final IntentRequest request, final Session session)
+            throws SpeechletException {
+        Intent intent = request.getIntent();
+        IntentHandler handler = (intent != null) ? handlers.get(intent.getName()) : null;
+        if (handler == null) {
+            handler = fallbackHandler;
+        }
+
+        return handler.handle(request, session);
+    }
+
+    /**
+     * Returns the names of the intents with a handler.
+     *
+     * @return the intent names
+     */
+    public Set<String> getIntentNames() {
+        return handlers.keySet();
+    }
+
+    /**
+     * Reads the names of the intents declared in an intent schema.
+     *
+     * @param intentSchema
+     *            the intent schema, the stream is not closed
+     * @return the intent names
+     * @throws IOException
+     *             if the intent schema can't be read
+     */
+    public static Set<String> readIntentNames(final InputStream intentSchema) throws IOException {
+        JsonNode intents = OBJECT_MAPPER.readTree(intentSchema).path("intents");
+        if (!intents.isArray()) {
+            throw new IOException("Intent schema has no intents array");
+        }
+
+        Set<String> intentNames = new HashSet<String>();
+        for (JsonNode intent : intents) {
+            String intentName = intent.path("intent").textValue();
+            if (intentName == null) {
+                throw new IOException("Intent schema has an intent without a name");
+            }
+            intentNames.add(intentName);
+        }
+        return intentNames;
+    }
+
+    /**
+     * Builder used to construct a new {@code IntentRouter}.
+     */
+    public static final class Builder {
+        private final Map<String, IntentHandler> handlers = new HashMap<String, IntentHandler>();
+        private IntentHandler fallbackHandler = INVALID_INTENT_HANDLER;
+        private Set<String> declaredIntentNames;
+
+        private Builder() {
+        }
+
+        public Builder withIntentHandler(final String intentName, final IntentHandler handler) {
+            if (intentName == null || handler == null) {
+                throw new IllegalArgumentException(
+                        "A null intent name or handler is not supported");
+            }
+            handlers.put(intentName, handler);
+            return this;
+        }
+
+        /**
+         * Sets the handler for intents without a handler of their own. By default those requests
+         * fail with a {@link SpeechletException}.
+         *
+         * @param fallbackHandler
+         *            the fallback handler
+         * @return the builder
+         */
+        public Builder withFallbackHandler(final IntentHandler fallbackHandler) {
+            if (fallbackHandler == null) {
+                throw new IllegalArgumentException("A null fallback handler is not supported");
+            }
+            this.fallbackHandler = fallbackHandler;
+            return this;
+        }
+
+        /**
+         * Sets the intent schema the handlers are validated against when the router is built.
+         *
+         * @param intentSchema
+         *            the intent schema, the stream is not closed
+         * @return the builder
+         * @throws IOException
+         *             if the intent schema can't be read
+         */
+        public Builder withIntentSchema(final InputStream intentSchema) throws IOException {
+            declaredIntentNames = readIntentNames(intentSchema);
+            return this;
+        }
+
+        /**
+         * Sets the intent schema the handlers are validated against when the router is built,
+         * read from a resource. A missing resource is only logged, and the handlers are then not
+         * validated.
+         *
+         * @param resourceBase
+         *            the class the resource name is resolved against, see
+         *            {@link Class#getResourceAsStream(String)}
+         * @param resourceName
+         *            the name of the intent schema resource, typically
+         *            {@code speechAssets/IntentSchema.json}
+         * @return the builder
+         * @throws IllegalStateException
+         *             if the intent schema resource exists but can't be read
+         */
+        public Builder withIntentSchemaResource(final Class<?> resourceBase,
+                final String resourceName) {
+            if (resourceBase == null || resourceName == null) {
+                throw new IllegalArgumentException(
+                        "A null resource base or resource name is not supported");
+            }
+
+            InputStream intentSchema = resourceBase.getResourceAsStream(resourceName);
+            if (intentSchema == null) {
+                log.warn("Intent schema {} not found, intent handlers are not validated",
+                        resourceName);
+                return this;
+            }
+
+            try {
+                return withIntentSchema(intentSchema);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to read intent schema " + resourceName, e);
+            } finally {
+                try {
+                    intentSchema.close();
+                } catch (IOException e) {
+                    log.debug("Unable to close intent schema {}", resourceName, e);
+                }
+            }
+        }
+
+        /**
+         * Builds the router.
+         *
+         * @return the router
+         * @throws IllegalStateException
+         *             if a handler is registered for an intent the intent schema doesn't declare
+         */
+        public IntentRouter build() {
+            if (declaredIntentNames != null) {
+                for (String intentName : handlers.keySet()) {
+                    if (!declaredIntentNames.contains(intentName)) {
+                        throw new IllegalStateException(String.format(
+                                "Intent %s has a handler but is not declared in the intent schema",
+                                intentName));
+                    }
+                }
+                for (String intentName : declaredIntentNames) {
+                    if (!handlers.containsKey(intentName)) {
+                        log.warn("Intent {} has no handler, its requests go to the fallback handler",
+                                intentName);
+                    }
+                }
+            }
+
+            return new IntentRouter(this);
+        }
+    }
+}
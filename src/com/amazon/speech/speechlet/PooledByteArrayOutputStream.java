@@ -0,0 +1,145 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ByteArrayOutputStream} taken from a shared pool, so that the buffers holding serialized
+ * requests and responses are reused across requests instead of being allocated for each of them.
+ * <p>
+ * Obtain a stream with {@link #acquire()} and hand it back with {@link #close()}, typically in a
+ * try-with-resources statement. The backing array is exposed by {@link #getBuffer()} to avoid a
+ * copy; only the first {@link #size()} bytes are valid, and neither may be used once the stream is
+ * closed.
+ */
+public final class PooledByteArrayOutputStream extends ByteArrayOutputStream {
+    /**
+     * Initial capacity of a new buffer, large enough for most speechlet requests and responses.
+     */
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+
+    /**
+     * Buffers grown beyond this capacity are not returned to the pool.
+     */
+    private static final int MAX_POOLED_CAPACITY = 256 * 1024;
+
+    /**
+     * Maximum number of idle buffers kept in the pool.
+     */
+    private static final int MAX_POOLED_BUFFERS = 64;
+
+    private static final BlockingQueue<PooledByteArrayOutputStream> POOL =
+            new ArrayBlockingQueue<PooledByteArrayOutputStream>(MAX_POOLED_BUFFERS);
+
+    private static final AtomicLong ACQUIRE_COUNT = new AtomicLong();
+    private static final AtomicLong REUSE_COUNT = new AtomicLong();
+
+    private boolean released;
+
+    private PooledByteArrayOutputStream() {
+        super(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns an empty stream from the pool, or a new one if the pool is empty.
+     *
+     * @return the stream
+     */
+    public static PooledByteArrayOutputStream acquire() {
+        ACQUIRE_COUNT.incrementAndGet();
+        PooledByteArrayOutputStream stream = POOL.poll();
+        if (stream == null) {
+            return new PooledByteArrayOutputStream();
+        }
+
+        REUSE_COUNT.incrementAndGet();
+        stream.released = false;
+        return stream;
+    }
+
+    /**
+     * Returns the number of streams acquired so far.
+     *
+     * @return the acquire count
+     */
+    public static long getAcquireCount() {
+        return ACQUIRE_COUNT.get();
+    }
+
+    /**
+     * Returns the number of streams acquired so far that reused a pooled buffer rather than
+     * allocating a new one.
+     *
+     * @return the reuse count
+     */
+    public static long getReuseCount() {
+        return REUSE_COUNT.get();
+    }
+
+    /**
+     * Appends everything remaining in the provided stream to this one, reading straight into the
+     * backing array. The provided stream is not closed.
+     *
+     * @param in
+     *            the stream to read
+     * @throws IOException
+     *             if the provided stream can't be read
+     */
+    public synchronized void readFrom(final InputStream in) throws IOException {
+        while (true) {
+            if (count == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length << 1);
+            }
+
+            int read = in.read(buf, count, buf.length - count);
+            if (read < 0) {
+                return;
+            }
+            count += read;
+        }
+    }
+
+    /**
+     * Returns the backing array of this stream, without copying it. Only the first
+     * {@link #size()} bytes are valid.
+     *
+     * @return the backing array
+     */
+    public synchronized byte[] getBuffer() {
+        return buf;
+    }
+
+    /**
+     * Returns this stream to the pool. Closing a stream more than once has no effect.
+     */
+    @Override
+    public synchronized void close() {
+        if (released) {
+            return;
+        }
+
+        released = true;
+        reset();
+        if (buf.length <= MAX_POOLED_CAPACITY) {
+            POOL.offer(this);
+        }
+    }
+}
@@ -14,7 +14,15 @@
 package com.amazon.speech.speechlet;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 import com.amazon.speech.Sdk;
 import com.amazon.speech.json.SpeechletRequestEnvelope;
@@ -35,26 +43,171 @@ import com.amazon.speech.speechlet.interfaces.playbackcontroller.request.Previou
 import com.amazon.speech.speechlet.interfaces.system.System;
 import com.amazon.speech.speechlet.interfaces.system.request.ExceptionEncounteredRequest;
 import com.amazon.speech.speechlet.interfaces.system.request.SystemRequest;
+import com.amazon.speech.speechlet.store.SessionStore;
 
 /**
  * This class takes an incoming request from the Alexa service, executes that call on the
- * {@link SpeechletV2} and returns the resulting response.
+ * {@link SpeechletV2}, or {@link AsyncSpeechletV2}, and returns the resulting response.
+ * <p>
+ * The handler for each request type is resolved once, when the dispatcher is constructed, from
+ * the interfaces the speechlet implements. A dispatcher can therefore be kept for the lifetime of
+ * its speechlet and dispatching a request only costs a lookup by request class. Handlers for
+ * additional request types can be added from within this package, with
+ * {@code registerRequestHandler}.
+ * <p>
+ * This class is thread-safe.
  */
 public class SpeechletRequestDispatcher {
-    private final SpeechletV2 speechlet;
+    private static final RequestTypeHandler<SpeechletRequest> NO_RESPONSE_HANDLER =
+            new RequestTypeHandler<SpeechletRequest>() {
+                @Override
+                public SpeechletResponse handle(
+                        SpeechletRequestEnvelope<SpeechletRequest> requestEnvelope) {
+                    return null;
+                }
+            };
+
+    private static final Function<Void, SpeechletResponse> NO_RESPONSE =
+            new Function<Void, SpeechletResponse>() {
+                @Override
+                public SpeechletResponse apply(Void ignored) {
+                    return null;
+                }
+            };
+
+    /**
+     * Marks request classes that resolved to no route.
+     */
+    private static final Route UNSUPPORTED = new Route(null, SessionAttributes.NONE);
+
+    /**
+     * The speechlet as provided at construction time.
+     */
+    private final Object target;
+    private final AsyncSpeechletV2 speechlet;
+    private final SessionStore sessionStore;
+
+    /**
+     * Routes by the request class they were registered for.
+     */
+    private final ConcurrentMap<Class<?>, Route> routes =
+            new ConcurrentHashMap<Class<?>, Route>();
+
+    /**
+     * Routes by the request class they were resolved for, including subclasses of the registered
+     * request classes. Cleared whenever a route is registered.
+     */
+    private final ConcurrentMap<Class<?>, Route> resolvedRoutes =
+            new ConcurrentHashMap<Class<?>, Route>();
 
     public SpeechletRequestDispatcher(SpeechletV2 speechlet) {
-        this.speechlet = speechlet;
+        this(speechlet, null);
     }
 
     public SpeechletRequestDispatcher(Speechlet speechlet) {
         this(new SpeechletToSpeechletV2Adapter(speechlet));
     }
 
+    /**
+     * Constructs a dispatcher which keeps session attributes in the provided {@link SessionStore}
+     * instead of in the response envelope.
+     *
+     * @param speechlet
+     *            the speechlet to dispatch to
+     * @param sessionStore
+     *            the store for session attributes, or {@code null} to keep them in the envelope
+     */
+    public SpeechletRequestDispatcher(SpeechletV2 speechlet, SessionStore sessionStore) {
+        this(speechlet, new SpeechletV2ToAsyncSpeechletV2Adapter(speechlet), sessionStore);
+    }
+
+    /**
+     * Constructs a dispatcher for an {@link AsyncSpeechletV2}, which keeps session attributes in
+     * the provided {@link SessionStore} instead of in the response envelope.
+     *
+     * @param speechlet
+     *            the speechlet to dispatch to
+     * @param sessionStore
+     *            the store for session attributes, or {@code null} to keep them in the envelope
+     */
+    public SpeechletRequestDispatcher(AsyncSpeechletV2 speechlet, SessionStore sessionStore) {
+        this(speechlet, speechlet, sessionStore);
+    }
+
+    private SpeechletRequestDispatcher(Object target, AsyncSpeechletV2 speechlet,
+            SessionStore sessionStore) {
+        this.target = target;
+        this.speechlet = speechlet;
+        this.sessionStore = sessionStore;
+
+        registerCoreRequestHandlers();
+
+        Object speechletWithInterfaces = unwrap(target);
+
+        // Requests for an interface the speechlet doesn't implement are accepted without a response
+        register(AudioPlayerRequest.class, NO_RESPONSE_HANDLER, SessionAttributes.NONE);
+        if (speechletWithInterfaces instanceof AudioPlayer) {
+            registerAudioPlayerRequestHandlers((AudioPlayer) speechletWithInterfaces);
+        }
+
+        register(PlaybackControllerRequest.class, NO_RESPONSE_HANDLER, SessionAttributes.NONE);
+        if (speechletWithInterfaces instanceof PlaybackController) {
+            registerPlaybackControllerRequestHandlers(
+                    (PlaybackController) speechletWithInterfaces);
+        }
+
+        register(SystemRequest.class, NO_RESPONSE_HANDLER, SessionAttributes.NONE);
+        if (speechletWithInterfaces instanceof System) {
+            registerSystemRequestHandlers((System) speechletWithInterfaces);
+        }
+    }
+
+    /**
+     * Handles requests of a single type on behalf of a {@link SpeechletRequestDispatcher}.
+     *
+     * @param <T>
+     *            the type of request handled
+     */
+    interface RequestTypeHandler<T extends SpeechletRequest> {
+        /**
+         * Handles the provided request.
+         *
+         * @param requestEnvelope
+         *            the request envelope
+         * @return the response, or {@code null} if there is none
+         */
+        SpeechletResponse handle(SpeechletRequestEnvelope<T> requestEnvelope);
+    }
+
+    /**
+     * Registers the handler for a request type, replacing the handler previously registered for
+     * that type, if any. The handler also handles subclasses of the request type that have no
+     * handler of their own.
+     * <p>
+     * This is package-private: {@link SpeechletRequestHandler} rebuilds its dispatcher when the
+     * speechlet changes, which would silently drop handlers registered from outside.
+     * </p>
+     *
+     * @param requestType
+     *            the request class
+     * @param handler
+     *            the handler for requests of that class
+     * @param saveSessionAttributes
+     *            whether the session attributes are sent back, or stored, after the request is
+     *            handled, unless the response ends the session
+     * @param <T>
+     *            the type of request handled
+     */
+    <T extends SpeechletRequest> void registerRequestHandler(Class<T> requestType,
+            RequestTypeHandler<T> handler, boolean saveSessionAttributes) {
+        register(requestType, handler, saveSessionAttributes ? SessionAttributes.SAVE
+                : SessionAttributes.NONE);
+    }
+
     /**
      * Processes the provided {@link SpeechletRequestEnvelope} and generates an appropriate response
      * after dispatching the appropriate method calls on the {@link SpeechletV2} provided at
-     * construction time.
+     * construction time. For an {@link AsyncSpeechletV2}, waits for the response.
      *
      * @param requestEnvelope
      *            the current request
@@ -71,13 +224,58 @@ public class SpeechletRequestDispatcher {
     public SpeechletResponseEnvelope dispatchSpeechletCall(
             SpeechletRequestEnvelope<?> requestEnvelope, Session session)
             throws IOException, SpeechletRequestHandlerException, SpeechletException {
-        SpeechletRequest speechletRequest = requestEnvelope.getRequest();
+        CompletableFuture<SpeechletResponseEnvelope> responseEnvelope =
+                dispatchSpeechletCallAsync(requestEnvelope, session);
+        try {
+            return responseEnvelope.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SpeechletException("Interrupted while waiting for the speechlet", e);
+        } catch (ExecutionException e) {
+            Throwable cause = unwrapException(e);
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof SpeechletRequestHandlerException) {
+                throw (SpeechletRequestHandlerException) cause;
+            } else if (cause instanceof SpeechletException) {
+                throw (SpeechletException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SpeechletException(cause);
+        }
+    }
 
-        // Prepare a response envelope
-        final SpeechletResponseEnvelope responseEnvelope = new SpeechletResponseEnvelope();
-        responseEnvelope.setVersion(Sdk.VERSION);
+    /**
+     * Processes the provided {@link SpeechletRequestEnvelope} and returns a future of the
+     * appropriate response, completed once the speechlet provided at construction time has handled
+     * the request. Only the session attributes are restored before this method returns.
+     * <p>
+     * The future is completed exceptionally with the exceptions
+     * {@link #dispatchSpeechletCall(SpeechletRequestEnvelope, Session)} would throw, possibly
+     * wrapped in a {@link java.util.concurrent.CompletionException}; see
+     * {@link #unwrapException(Throwable)}.
+     *
+     * @param requestEnvelope
+     *            the current request
+     * @param session
+     *            the session for the request
+     * @return a future of the {@link SpeechletResponseEnvelope}
+     */
+    public CompletableFuture<SpeechletResponseEnvelope> dispatchSpeechletCallAsync(
+            final SpeechletRequestEnvelope<?> requestEnvelope, final Session session) {
+        final SpeechletRequest speechletRequest = requestEnvelope.getRequest();
+
+        try {
+            restoreSessionAttributes(session);
+        } catch (RuntimeException e) {
+            return SpeechletV2ToAsyncSpeechletV2Adapter.failedFuture(e);
+        }
 
         // If this is a new session, invoke the speechlet's onSessionStarted life-cycle method.
+        CompletableFuture<Void> sessionStarted;
         if ((session != null) && session.isNew()) {
             final String requestId =
                     (speechletRequest != null) ? speechletRequest.getRequestId() : null;
@@ -99,163 +297,384 @@ public class SpeechletRequestDispatcher {
                             .withVersion(requestEnvelope.getVersion())
                             .build();
             try {
-                speechlet.onSessionStarted(sessionStartedRequestEnvelope);
+                sessionStarted = speechlet.onSessionStarted(sessionStartedRequestEnvelope);
             } catch (RuntimeException e) {
-                // Doing this to preserve backwards compatibility if a Speechlet instead of a
-                // SpeechletV2 is used
-                if (e.getCause() instanceof SpeechletException) {
-                    throw (SpeechletException) e.getCause();
+                sessionStarted = SpeechletV2ToAsyncSpeechletV2Adapter.failedFuture(e);
+            }
+        } else {
+            sessionStarted = CompletableFuture.completedFuture(null);
+        }
+
+        final Route route = resolveRoute(speechletRequest);
+        return sessionStarted.thenCompose(new Function<Void, CompletableFuture<SpeechletResponse>>() {
+            @Override
+            public CompletableFuture<SpeechletResponse> apply(Void ignored) {
+                if (route == null) {
+                    String requestType =
+                            (speechletRequest != null) ? speechletRequest.getClass().getName()
+                                    : null;
+                    String message =
+                            String.format(
+                                    "Unsupported request type %s. Consider updating your SDK version. "
+                                            + "Request envelope version %s, SDK version %s",
+                                    requestType, requestEnvelope.getVersion(), Sdk.VERSION);
+                    return SpeechletV2ToAsyncSpeechletV2Adapter
+                            .failedFuture(new SpeechletRequestHandlerException(message));
                 }
 
-                throw e;
+                try {
+                    @SuppressWarnings("unchecked")
+                    AsyncRequestTypeHandler<SpeechletRequest> handler =
+                            (AsyncRequestTypeHandler<SpeechletRequest>) route.handler;
+                    @SuppressWarnings("unchecked")
+                    SpeechletRequestEnvelope<SpeechletRequest> parameterizedRequestEnvelope =
+                            (SpeechletRequestEnvelope<SpeechletRequest>) requestEnvelope;
+                    return handler.handle(parameterizedRequestEnvelope);
+                } catch (RuntimeException e) {
+                    return SpeechletV2ToAsyncSpeechletV2Adapter.failedFuture(e);
+                }
+            }
+        }).thenApply(new Function<SpeechletResponse, SpeechletResponseEnvelope>() {
+            @Override
+            public SpeechletResponseEnvelope apply(SpeechletResponse speechletResponse) {
+                return createResponseEnvelope(route, speechletResponse, session);
             }
+        });
+    }
+
+    /**
+     * Returns the exception a future of this dispatcher was completed with, without the
+     * {@link java.util.concurrent.CompletionException} and {@link ExecutionException} wrapping it.
+     * A {@link RuntimeException} wrapping a {@link SpeechletException}, as thrown by a
+     * {@link Speechlet} adapted into a {@link SpeechletV2}, is unwrapped as well.
+     *
+     * @param ex
+     *            the exception the future was completed with, or thrown while waiting for it
+     * @return the underlying exception
+     */
+    public static Throwable unwrapException(Throwable ex) {
+        Throwable cause = ex;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
         }
 
-        Object speechletWithInterfaces = speechlet instanceof SpeechletToSpeechletV2Adapter ?
-                ((SpeechletToSpeechletV2Adapter) speechlet).getSpeechlet() : speechlet;
+        // Doing this to preserve backwards compatibility if a Speechlet instead of a SpeechletV2
+        // is used
+        if (cause instanceof RuntimeException && cause.getCause() instanceof SpeechletException) {
+            return cause.getCause();
+        }
+
+        return cause;
+    }
+
+    private SpeechletResponseEnvelope createResponseEnvelope(Route route,
+            SpeechletResponse speechletResponse, Session session) {
+        SpeechletResponseEnvelope responseEnvelope = new SpeechletResponseEnvelope();
+        responseEnvelope.setVersion(Sdk.VERSION);
 
         boolean saveSessionAttributes = false;
-        SpeechletResponse speechletResponse = null;
+        if (route.sessionAttributes == SessionAttributes.SAVE) {
+            saveSessionAttributes =
+                    speechletResponse != null ? !speechletResponse.getShouldEndSession() : true;
+            // No SessionEndedRequest follows a session the skill ends itself; a new session has
+            // nothing stored yet
+            if (!saveSessionAttributes && sessionStore != null && session != null
+                    && !session.isNew()) {
+                sessionStore.remove(session.getSessionId());
+            }
+        } else if (route.sessionAttributes == SessionAttributes.REMOVE) {
+            if (sessionStore != null && session != null) {
+                sessionStore.remove(session.getSessionId());
+            }
+        }
 
-        /** AudioPlayer **/
-        if (speechletRequest instanceof AudioPlayerRequest) {
-            if (speechletWithInterfaces instanceof AudioPlayer) {
-                AudioPlayer audioPlayerSpeechlet = (AudioPlayer) speechletWithInterfaces;
-                if (speechletRequest instanceof PlaybackFailedRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<PlaybackFailedRequest> typeSpecificRequestEnvelope =
-                            (SpeechletRequestEnvelope<PlaybackFailedRequest>) requestEnvelope;
-                    speechletResponse = audioPlayerSpeechlet.onPlaybackFailed(typeSpecificRequestEnvelope);
-                } else if (speechletRequest instanceof PlaybackFinishedRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<PlaybackFinishedRequest> typeSpecificRequestEnvelope =
-                            (SpeechletRequestEnvelope<PlaybackFinishedRequest>) requestEnvelope;
-                    speechletResponse =
-                            audioPlayerSpeechlet
-                                    .onPlaybackFinished(typeSpecificRequestEnvelope);
-                } else if (speechletRequest instanceof PlaybackNearlyFinishedRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<PlaybackNearlyFinishedRequest> typeSpecificRequestEnvelope =
-                            (SpeechletRequestEnvelope<PlaybackNearlyFinishedRequest>) requestEnvelope;
-                    speechletResponse =
-                            audioPlayerSpeechlet
-                                    .onPlaybackNearlyFinished(typeSpecificRequestEnvelope);
-                } else if (speechletRequest instanceof PlaybackStartedRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<PlaybackStartedRequest> typeSpecificRequestEnvelope =
-                            (SpeechletRequestEnvelope<PlaybackStartedRequest>) requestEnvelope;
-                    speechletResponse =
-                            audioPlayerSpeechlet
-                                    .onPlaybackStarted(typeSpecificRequestEnvelope);
-                } else if (speechletRequest instanceof PlaybackStoppedRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<PlaybackStoppedRequest> typeSpecificRequestEnvelope =
-                            (SpeechletRequestEnvelope<PlaybackStoppedRequest>) requestEnvelope;
-                    speechletResponse =
-                            audioPlayerSpeechlet
-                                    .onPlaybackStopped(typeSpecificRequestEnvelope);
+        responseEnvelope.setResponse(speechletResponse);
+
+        if (saveSessionAttributes && session != null) {
+            responseEnvelope.setSessionAttributes(storeSessionAttributes(session));
+        }
+
+        return responseEnvelope;
+    }
+
+    /**
+     * Returns whether this dispatcher dispatches to the provided speechlet, or to the same
+     * {@link Speechlet} if both are adapted, and keeps session attributes in the provided store.
+     *
+     * @param speechlet
+     *            the speechlet
+     * @param sessionStore
+     *            the session store, may be {@code null}
+     * @return {@code true} if this dispatcher can be used in place of a new one
+     */
+    boolean dispatchesTo(Object speechlet, SessionStore sessionStore) {
+        if (this.sessionStore != sessionStore) {
+            return false;
+        }
+        if (target == speechlet) {
+            return true;
+        }
+
+        if (target instanceof SpeechletToSpeechletV2Adapter
+                && speechlet instanceof SpeechletToSpeechletV2Adapter) {
+            Speechlet adapted = ((SpeechletToSpeechletV2Adapter) target).getSpeechlet();
+            return adapted == ((SpeechletToSpeechletV2Adapter) speechlet).getSpeechlet();
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the speechlet behind any adapters, which is the one implementing the optional
+     * interfaces such as {@link AudioPlayer}.
+     */
+    private static Object unwrap(Object speechlet) {
+        Object unwrapped = speechlet;
+        if (unwrapped instanceof SpeechletV2ToAsyncSpeechletV2Adapter) {
+            unwrapped = ((SpeechletV2ToAsyncSpeechletV2Adapter) unwrapped).getSpeechletV2();
+        }
+        if (unwrapped instanceof SpeechletToSpeechletV2Adapter) {
+            unwrapped = ((SpeechletToSpeechletV2Adapter) unwrapped).getSpeechlet();
+        }
+        return unwrapped;
+    }
+
+    /**
+     * Returns the route for the provided request, or {@code null} if its type is not supported.
+     *
+     * @param speechletRequest
+     *            the request, may be {@code null}
+     * @return the route, or {@code null}
+     */
+    private Route resolveRoute(SpeechletRequest speechletRequest) {
+        if (speechletRequest == null) {
+            return null;
+        }
+
+        Class<?> requestType = speechletRequest.getClass();
+        Route route = resolvedRoutes.get(requestType);
+        if (route == null) {
+            route = UNSUPPORTED;
+            for (Class<?> type = requestType; type != null; type = type.getSuperclass()) {
+                Route registered = routes.get(type);
+                if (registered != null) {
+                    route = registered;
+                    break;
                 }
             }
-            /** PlaybackController **/
-        } else if (speechletRequest instanceof PlaybackControllerRequest) {
-            if (speechletWithInterfaces instanceof PlaybackController) {
-                PlaybackController playbackControllerSpeechlet = (PlaybackController) speechletWithInterfaces;
-                if (speechletRequest instanceof NextCommandIssuedRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<NextCommandIssuedRequest> typeSpecificRequestEnvelope =
-                            (SpeechletRequestEnvelope<NextCommandIssuedRequest>) requestEnvelope;
-                    speechletResponse =
-                            playbackControllerSpeechlet
-                                    .onNextCommandIssued(typeSpecificRequestEnvelope);
-                } else if (speechletRequest instanceof PreviousCommandIssuedRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<PreviousCommandIssuedRequest> typeSpecificRequestEnvelope =
-                            (SpeechletRequestEnvelope<PreviousCommandIssuedRequest>) requestEnvelope;
-                    speechletResponse =
-                            playbackControllerSpeechlet
-                                    .onPreviousCommandIssued(typeSpecificRequestEnvelope);
-                } else if (speechletRequest instanceof PauseCommandIssuedRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<PauseCommandIssuedRequest> typeSpecificRequestEnvelope =
-                            (SpeechletRequestEnvelope<PauseCommandIssuedRequest>) requestEnvelope;
-                    speechletResponse =
-                            playbackControllerSpeechlet
-                                    .onPauseCommandIssued(typeSpecificRequestEnvelope);
-                } else if (speechletRequest instanceof PlayCommandIssuedRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<PlayCommandIssuedRequest> typeSpecificRequestEnvelope =
-                            (SpeechletRequestEnvelope<PlayCommandIssuedRequest>) requestEnvelope;
-                    speechletResponse =
-                            playbackControllerSpeechlet
-                                    .onPlayCommandIssued(typeSpecificRequestEnvelope);
-                }
+            resolvedRoutes.put(requestType, route);
+        }
+
+        return route != UNSUPPORTED ? route : null;
+    }
+
+    private <T extends SpeechletRequest> void register(Class<? extends T> requestType,
+            final RequestTypeHandler<T> handler, SessionAttributes sessionAttributes) {
+        if (handler == null) {
+            throw new IllegalArgumentException("A null request type or handler is not supported");
+        }
+
+        registerAsync(requestType, new AsyncRequestTypeHandler<T>() {
+            @Override
+            public CompletableFuture<SpeechletResponse> handle(
+                    SpeechletRequestEnvelope<T> requestEnvelope) {
+                return CompletableFuture.completedFuture(handler.handle(requestEnvelope));
             }
-            /** System **/
-        } else if (speechletRequest instanceof SystemRequest) {
-            if (speechletWithInterfaces instanceof System) {
-                System systemSpeechlet = (System) speechletWithInterfaces;
-                if (speechletRequest instanceof ExceptionEncounteredRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<ExceptionEncounteredRequest> typeSpecificRequestEnvelope =
-                            (SpeechletRequestEnvelope<ExceptionEncounteredRequest>) requestEnvelope;
-                    systemSpeechlet
-                            .onExceptionEncountered(typeSpecificRequestEnvelope);
-                }
+        }, sessionAttributes);
+    }
+
+    private <T extends SpeechletRequest> void registerAsync(Class<? extends T> requestType,
+            AsyncRequestTypeHandler<T> handler, SessionAttributes sessionAttributes) {
+        if (requestType == null || handler == null) {
+            throw new IllegalArgumentException("A null request type or handler is not supported");
+        }
+
+        routes.put(requestType, new Route(handler, sessionAttributes));
+        resolvedRoutes.clear();
+    }
+
+    private void registerCoreRequestHandlers() {
+        // Core requests without a method of their own only get the session attributes back
+        register(CoreSpeechletRequest.class, NO_RESPONSE_HANDLER, SessionAttributes.SAVE);
+        registerAsync(LaunchRequest.class, new AsyncRequestTypeHandler<LaunchRequest>() {
+            @Override
+            public CompletableFuture<SpeechletResponse> handle(
+                    SpeechletRequestEnvelope<LaunchRequest> requestEnvelope) {
+                return speechlet.onLaunch(requestEnvelope);
             }
-            /** SpeechletV2 **/
-        } else if (speechletRequest instanceof CoreSpeechletRequest) {
-            try {
-                if (speechletRequest instanceof SessionEndedRequest) {
-                    @SuppressWarnings("unchecked")
-                    SpeechletRequestEnvelope<SessionEndedRequest> parameterizedRequestEnvelope =
-                            (SpeechletRequestEnvelope<SessionEndedRequest>) requestEnvelope;
-                    speechlet.onSessionEnded(parameterizedRequestEnvelope);
-                } else {
-                    if (speechletRequest instanceof IntentRequest) {
-                        @SuppressWarnings("unchecked")
-                        SpeechletRequestEnvelope<IntentRequest> parameterizedRequestEnvelope =
-                                (SpeechletRequestEnvelope<IntentRequest>) requestEnvelope;
-                        speechletResponse = speechlet.onIntent(parameterizedRequestEnvelope);
-                    } else if (speechletRequest instanceof LaunchRequest) {
-                        @SuppressWarnings("unchecked")
-                        SpeechletRequestEnvelope<LaunchRequest> parameterizedRequestEnvelope =
-                                (SpeechletRequestEnvelope<LaunchRequest>) requestEnvelope;
-                        speechletResponse = speechlet.onLaunch(parameterizedRequestEnvelope);
+        }, SessionAttributes.SAVE);
+        registerAsync(IntentRequest.class, new AsyncRequestTypeHandler<IntentRequest>() {
+            @Override
+            public CompletableFuture<SpeechletResponse> handle(
+                    SpeechletRequestEnvelope<IntentRequest> requestEnvelope) {
+                return speechlet.onIntent(requestEnvelope);
+            }
+        }, SessionAttributes.SAVE);
+        registerAsync(SessionEndedRequest.class, new AsyncRequestTypeHandler<SessionEndedRequest>() {
+            @Override
+            public CompletableFuture<SpeechletResponse> handle(
+                    SpeechletRequestEnvelope<SessionEndedRequest> requestEnvelope) {
+                return speechlet.onSessionEnded(requestEnvelope).thenApply(NO_RESPONSE);
+            }
+        }, SessionAttributes.REMOVE);
+    }
+
+    private void registerAudioPlayerRequestHandlers(final AudioPlayer audioPlayer) {
+        register(PlaybackFailedRequest.class, new RequestTypeHandler<PlaybackFailedRequest>() {
+            @Override
+            public SpeechletResponse handle(
+                    SpeechletRequestEnvelope<PlaybackFailedRequest> requestEnvelope) {
+                return audioPlayer.onPlaybackFailed(requestEnvelope);
+            }
+        }, SessionAttributes.NONE);
+        register(PlaybackFinishedRequest.class, new RequestTypeHandler<PlaybackFinishedRequest>() {
+            @Override
+            public SpeechletResponse handle(
+                    SpeechletRequestEnvelope<PlaybackFinishedRequest> requestEnvelope) {
+                return audioPlayer.onPlaybackFinished(requestEnvelope);
+            }
+        }, SessionAttributes.NONE);
+        register(PlaybackNearlyFinishedRequest.class,
+                new RequestTypeHandler<PlaybackNearlyFinishedRequest>() {
+                    @Override
+                    public SpeechletResponse handle(
+                            SpeechletRequestEnvelope<PlaybackNearlyFinishedRequest> requestEnvelope) {
+                        return audioPlayer.onPlaybackNearlyFinished(requestEnvelope);
                     }
+                }, SessionAttributes.NONE);
+        register(PlaybackStartedRequest.class, new RequestTypeHandler<PlaybackStartedRequest>() {
+            @Override
+            public SpeechletResponse handle(
+                    SpeechletRequestEnvelope<PlaybackStartedRequest> requestEnvelope) {
+                return audioPlayer.onPlaybackStarted(requestEnvelope);
+            }
+        }, SessionAttributes.NONE);
+        register(PlaybackStoppedRequest.class, new RequestTypeHandler<PlaybackStoppedRequest>() {
+            @Override
+            public SpeechletResponse handle(
+                    SpeechletRequestEnvelope<PlaybackStoppedRequest> requestEnvelope) {
+                return audioPlayer.onPlaybackStopped(requestEnvelope);
+            }
+        }, SessionAttributes.NONE);
+    }
 
-                    if (speechletResponse != null) {
-                        saveSessionAttributes = !speechletResponse.getShouldEndSession();
-                    } else {
-                        saveSessionAttributes = true;
+    private void registerPlaybackControllerRequestHandlers(
+            final PlaybackController playbackController) {
+        register(NextCommandIssuedRequest.class,
+                new RequestTypeHandler<NextCommandIssuedRequest>() {
+                    @Override
+                    public SpeechletResponse handle(
+                            SpeechletRequestEnvelope<NextCommandIssuedRequest> requestEnvelope) {
+                        return playbackController.onNextCommandIssued(requestEnvelope);
                     }
-                }
-            } catch (RuntimeException e) {
-                // Doing this to preserve backwards compatibility if a Speechlet instead of a
-                // SpeechletV2 is used
-                if (e.getCause() instanceof SpeechletException) {
-                    throw (SpeechletException) e.getCause();
-                }
+                }, SessionAttributes.NONE);
+        register(PreviousCommandIssuedRequest.class,
+                new RequestTypeHandler<PreviousCommandIssuedRequest>() {
+                    @Override
+                    public SpeechletResponse handle(
+                            SpeechletRequestEnvelope<PreviousCommandIssuedRequest> requestEnvelope) {
+                        return playbackController.onPreviousCommandIssued(requestEnvelope);
+                    }
+                }, SessionAttributes.NONE);
+        register(PauseCommandIssuedRequest.class,
+                new RequestTypeHandler<PauseCommandIssuedRequest>() {
+                    @Override
+                    public SpeechletResponse handle(
+                            SpeechletRequestEnvelope<PauseCommandIssuedRequest> requestEnvelope) {
+                        return playbackController.onPauseCommandIssued(requestEnvelope);
+                    }
+                }, SessionAttributes.NONE);
+        register(PlayCommandIssuedRequest.class,
+                new RequestTypeHandler<PlayCommandIssuedRequest>() {
+                    @Override
+                    public SpeechletResponse handle(
+                            SpeechletRequestEnvelope<PlayCommandIssuedRequest> requestEnvelope) {
+                        return playbackController.onPlayCommandIssued(requestEnvelope);
+                    }
+                }, SessionAttributes.NONE);
+    }
+
+    private void registerSystemRequestHandlers(final System system) {
+        register(ExceptionEncounteredRequest.class,
+                new RequestTypeHandler<ExceptionEncounteredRequest>() {
+                    @Override
+                    public SpeechletResponse handle(
+                            SpeechletRequestEnvelope<ExceptionEncounteredRequest> requestEnvelope) {
+                        system.onExceptionEncountered(requestEnvelope);
+                        return null;
+                    }
+                }, SessionAttributes.NONE);
+    }
+
+    /**
+     * Replaces the {@link SessionStore#HANDLE_ATTRIBUTE} in the provided session, if present, with
+     * the attributes loaded from the session store.
+     *
+     * @param session
+     *            the session for the request
+     */
+    private void restoreSessionAttributes(Session session) {
+        if (sessionStore == null || session == null) {
+            return;
+        }
 
-                throw e;
+        Map<String, Object> attributes = session.getAttributes();
+        if (attributes.remove(SessionStore.HANDLE_ATTRIBUTE) != null) {
+            Map<String, Object> storedAttributes = sessionStore.load(session.getSessionId());
+            if (storedAttributes != null) {
+                attributes.putAll(storedAttributes);
             }
-            /** Exception **/
-        } else {
-            String requestType =
-                    (speechletRequest != null) ? speechletRequest.getClass().getName() : null;
-            String message =
-                    String.format(
-                            "Unsupported request type %s. Consider updating your SDK version. "
-                                    + "Request envelope version %s, SDK version %s", requestType,
-                            requestEnvelope.getVersion(), Sdk.VERSION);
-            throw new SpeechletRequestHandlerException(message);
         }
+    }
 
-        responseEnvelope.setResponse(speechletResponse);
+    /**
+     * Saves the attributes of the provided session to the session store, if any, and returns the
+     * attributes to send back in the response envelope.
+     *
+     * @param session
+     *            the session for the request
+     * @return the attributes to send back in the response envelope
+     */
+    private Map<String, Object> storeSessionAttributes(Session session) {
+        Map<String, Object> attributes = session.getAttributes();
+        if (sessionStore == null) {
+            return attributes;
+        }
 
-        if (saveSessionAttributes && session != null) {
-            responseEnvelope.setSessionAttributes(session.getAttributes());
+        if (attributes.isEmpty()) {
+            sessionStore.remove(session.getSessionId());
+            return attributes;
         }
 
-        return responseEnvelope;
+        sessionStore.save(session.getSessionId(), attributes);
+        return Collections.<String, Object>singletonMap(SessionStore.HANDLE_ATTRIBUTE,
+                session.getSessionId());
+    }
+
+    /**
+     * What happens to the session attributes once a request has been handled.
+     */
+    private enum SessionAttributes {
+        NONE,
+        SAVE,
+        REMOVE
+    }
+
+    /**
+     * Handles requests of a single type, returning a future of the response.
+     */
+    private interface AsyncRequestTypeHandler<T extends SpeechletRequest> {
+        CompletableFuture<SpeechletResponse> handle(SpeechletRequestEnvelope<T> requestEnvelope);
+    }
+
+    private static final class Route {
+        private final AsyncRequestTypeHandler<?> handler;
+        private final SessionAttributes sessionAttributes;
+
+        private Route(AsyncRequestTypeHandler<?> handler, SessionAttributes sessionAttributes) {
+            this.handler = handler;
+            this.sessionAttributes = sessionAttributes;
+        }
     }
 }
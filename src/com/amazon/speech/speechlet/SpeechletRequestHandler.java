@@ -18,15 +18,26 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+import com.amazon.speech.Sdk;
 import com.amazon.speech.json.SpeechletRequestEnvelope;
 import com.amazon.speech.json.SpeechletResponseEnvelope;
+import com.amazon.speech.speechlet.store.SessionStore;
 import com.amazon.speech.speechlet.verifier.ApplicationIdSpeechletRequestVerifier;
 import com.amazon.speech.speechlet.verifier.ApplicationIdSpeechletRequestEnvelopeVerifier;
 import com.amazon.speech.speechlet.verifier.CardSpeechletResponseVerifier;
 import com.amazon.speech.speechlet.verifier.OutputSpeechSpeechletResponseVerifier;
 import com.amazon.speech.speechlet.verifier.ResponseSizeSpeechletResponseVerifier;
+import com.amazon.speech.speechlet.verifier.SerializedSpeechletResponseVerifier;
 import com.amazon.speech.speechlet.verifier.SpeechletRequestVerifier;
 import com.amazon.speech.speechlet.verifier.SpeechletRequestEnvelopeVerifier;
 import com.amazon.speech.speechlet.verifier.SpeechletResponseVerifier;
@@ -40,9 +51,26 @@ import com.amazon.speech.speechlet.verifier.SpeechletResponseVerifier;
  */
 @SuppressWarnings("deprecation")
 public class SpeechletRequestHandler {
+    /**
+     * Maximum number of constant responses cached for each shape of envelope, so that a speechlet
+     * declaring every response constant can't grow the caches without bound.
+     */
+    private static final int MAX_CONSTANT_RESPONSES = 64;
+
     private final List<SpeechletRequestVerifier> requestVerifiers;
     private final List<SpeechletRequestEnvelopeVerifier> requestEnvelopeVerifiers;
     private final List<SpeechletResponseVerifier> responseVerifiers;
+    private volatile SessionStore sessionStore;
+    private volatile SpeechletRequestDispatcher dispatcher;
+
+    /*
+     * Serialized envelopes of constant responses, without session attributes and with empty ones.
+     * The responses are keyed by identity, they don't override equals.
+     */
+    private final ConcurrentMap<SpeechletResponse, byte[]> constantResponses =
+            new ConcurrentHashMap<SpeechletResponse, byte[]>();
+    private final ConcurrentMap<SpeechletResponse, byte[]> constantResponsesWithEmptyAttributes =
+            new ConcurrentHashMap<SpeechletResponse, byte[]>();
 
     @Deprecated
     public SpeechletRequestHandler(final List<SpeechletRequestVerifier> requestVerifiers,
@@ -66,6 +94,26 @@ public class SpeechletRequestHandler {
         this.responseVerifiers = responseVerifiers;
     }
 
+    /**
+     * Returns the {@link SessionStore} session attributes are kept in, if any.
+     *
+     * @return the session store, or {@code null} if session attributes are kept in the envelope
+     */
+    public SessionStore getSessionStore() {
+        return sessionStore;
+    }
+
+    /**
+     * Sets the {@link SessionStore} to keep session attributes in instead of the response
+     * envelope.
+     *
+     * @param sessionStore
+     *            the session store, or {@code null} to keep session attributes in the envelope
+     */
+    public void setSessionStore(SessionStore sessionStore) {
+        this.sessionStore = sessionStore;
+    }
+
     /**
      * Processes the provided bytes as a request from the Alexa service and generates an appropriate
      * response after dispatching the request to the appropriate method calls on the
@@ -115,13 +163,217 @@ public class SpeechletRequestHandler {
         return internalHandleSpeechletCall(speechlet, serializedSpeechletRequest);
     }
 
+    /**
+     * Processes the request held in a region of the provided bytes and serializes the response
+     * into the provided stream. Both buffers are read and written in place, so that a caller
+     * holding them in pooled streams doesn't copy the request or the response.
+     *
+     * @param speechlet
+     *            the speechlet to be invoked
+     * @param serializedSpeechletRequest
+     *            the bytes holding the request coming from Alexa service
+     * @param offset
+     *            the offset of the request in the bytes
+     * @param length
+     *            the length of the request in the bytes
+     * @param serializedSpeechletResponse
+     *            the stream the response that should be returned to the Alexa service is
+     *            serialized into
+     * @throws IOException
+     *             may occur during request or response serialization
+     * @throws SpeechletRequestHandlerException
+     *             indicates a problem with the request or response
+     * @throws SpeechletException
+     *             indicates a problem from within the included {@code SpeechletV2}
+     */
+    public void handleSpeechletCall(SpeechletV2 speechlet, byte[] serializedSpeechletRequest,
+            int offset, int length, PooledByteArrayOutputStream serializedSpeechletResponse)
+            throws IOException, SpeechletRequestHandlerException, SpeechletException {
+        final SpeechletRequestEnvelope<?> requestEnvelope =
+                SpeechletRequestEnvelope.fromJson(serializedSpeechletRequest, offset, length);
+        SpeechletResponseEnvelope responseEnvelope = dispatch(speechlet, requestEnvelope);
+        writeResponse(requestEnvelope, responseEnvelope, serializedSpeechletResponse);
+    }
+
+    /**
+     * Processes the request held in a region of the provided bytes with an
+     * {@link AsyncSpeechletV2}, serializing the response into the provided stream once the
+     * speechlet completes it. The request is parsed and verified before this method returns, so
+     * the request bytes may be released then; the response stream must be kept until the returned
+     * future completes.
+     * <p>
+     * The future is completed exceptionally with the exceptions
+     * {@link #handleSpeechletCall(SpeechletV2, byte[], int, int, PooledByteArrayOutputStream)}
+     * would throw, see {@link SpeechletRequestDispatcher#unwrapException(Throwable)}.
+     *
+     * @param speechlet
+     *            the speechlet to be invoked
+     * @param serializedSpeechletRequest
+     *            the bytes holding the request coming from Alexa service
+     * @param offset
+     *            the offset of the request in the bytes
+     * @param length
+     *            the length of the request in the bytes
+     * @param serializedSpeechletResponse
+     *            the stream the response that should be returned to the Alexa service is
+     *            serialized into
+     * @return a future completed once the response has been serialized
+     */
+    public CompletableFuture<Void> handleSpeechletCallAsync(AsyncSpeechletV2 speechlet,
+            byte[] serializedSpeechletRequest, int offset, int length,
+            final PooledByteArrayOutputStream serializedSpeechletResponse) {
+        final SpeechletRequestEnvelope<?> requestEnvelope;
+        try {
+            requestEnvelope =
+                    SpeechletRequestEnvelope.fromJson(serializedSpeechletRequest, offset, length);
+            verifyRequest(requestEnvelope);
+        } catch (IOException | SpeechletRequestHandlerException | RuntimeException e) {
+            return SpeechletV2ToAsyncSpeechletV2Adapter.failedFuture(e);
+        }
+
+        return getDispatcher(speechlet)
+                .dispatchSpeechletCallAsync(requestEnvelope, requestEnvelope.getSession())
+                .thenApply(new Function<SpeechletResponseEnvelope, Void>() {
+                    @Override
+                    public Void apply(SpeechletResponseEnvelope responseEnvelope) {
+                        try {
+                            writeResponse(requestEnvelope, responseEnvelope,
+                                    serializedSpeechletResponse);
+                        } catch (IOException | SpeechletRequestHandlerException e) {
+                            throw new CompletionException(e);
+                        }
+                        return null;
+                    }
+                });
+    }
+
     private byte[] internalHandleSpeechletCall(SpeechletV2 speechlet,
             byte[] serializedSpeechletRequest) throws IOException,
             SpeechletRequestHandlerException, SpeechletException {
-
         final SpeechletRequestEnvelope<?> requestEnvelope =
                 SpeechletRequestEnvelope.fromJson(serializedSpeechletRequest);
+        SpeechletResponseEnvelope responseEnvelope = dispatch(speechlet, requestEnvelope);
+
+        byte[] serializedConstantResponse = getSerializedConstantResponse(responseEnvelope);
+        if (serializedConstantResponse != null) {
+            verifyResponse(requestEnvelope, responseEnvelope, serializedConstantResponse, 0,
+                    serializedConstantResponse.length);
+            // The cached bytes are shared, the caller may modify the returned array
+            return serializedConstantResponse.clone();
+        }
+
+        // Serialize the response once, verifiers of the serialized form share the bytes
+        byte[] serializedResponseEnvelope = responseEnvelope.toJsonBytes();
+        verifyResponse(requestEnvelope, responseEnvelope, serializedResponseEnvelope, 0,
+                serializedResponseEnvelope.length);
+        return serializedResponseEnvelope;
+    }
+
+    /**
+     * Serializes the provided constant response ahead of the requests it answers, typically while
+     * the speechlet is being set up. Without this, a constant response is serialized the first
+     * time it is returned. The response verifiers still run on every request it answers.
+     *
+     * @param response
+     *            the constant response
+     * @throws IOException
+     *             if the response can't be serialized
+     * @see SpeechletResponse#setConstant(boolean)
+     */
+    public void prepareConstantResponse(SpeechletResponse response) throws IOException {
+        if (response == null || !response.isConstant()) {
+            throw new IllegalArgumentException("A null or non-constant response is not supported");
+        }
+
+        // Mirror the envelope a dispatcher builds: only responses keeping the session open save
+        // the session attributes, which are empty for most requests answered by a constant
+        SpeechletResponseEnvelope responseEnvelope = new SpeechletResponseEnvelope();
+        responseEnvelope.setVersion(Sdk.VERSION);
+        responseEnvelope.setResponse(response);
+        if (!response.getShouldEndSession()) {
+            responseEnvelope.setSessionAttributes(Collections.<String, Object>emptyMap());
+        }
+        getSerializedConstantResponse(responseEnvelope);
+    }
+
+    /**
+     * Serializes the provided response envelope into the provided stream, or writes the cached
+     * bytes of a constant response, and verifies it.
+     */
+    private void writeResponse(SpeechletRequestEnvelope<?> requestEnvelope,
+            SpeechletResponseEnvelope responseEnvelope,
+            PooledByteArrayOutputStream serializedSpeechletResponse) throws IOException,
+            SpeechletRequestHandlerException {
+        byte[] serializedConstantResponse = getSerializedConstantResponse(responseEnvelope);
+        if (serializedConstantResponse != null) {
+            verifyResponse(requestEnvelope, responseEnvelope, serializedConstantResponse, 0,
+                    serializedConstantResponse.length);
+            serializedSpeechletResponse.write(serializedConstantResponse, 0,
+                    serializedConstantResponse.length);
+            return;
+        }
+
+        int responseOffset = serializedSpeechletResponse.size();
+        // Jackson closes the stream it writes to, which would return it to the pool
+        responseEnvelope.toJson(new CloseShieldOutputStream(serializedSpeechletResponse));
+        verifyResponse(requestEnvelope, responseEnvelope, serializedSpeechletResponse.getBuffer(),
+                responseOffset, serializedSpeechletResponse.size() - responseOffset);
+    }
+
+    /**
+     * Returns the cached serialized form of the provided envelope if it holds a constant response
+     * and no session attributes to send back, serializing and caching it on first use. The caller
+     * verifies the returned bytes against the request they answer.
+     *
+     * @param responseEnvelope
+     *            the response envelope
+     * @return the serialized envelope, which must not be modified, or {@code null} if the
+     *         envelope has to be serialized
+     */
+    private byte[] getSerializedConstantResponse(SpeechletResponseEnvelope responseEnvelope)
+            throws IOException {
+        SpeechletResponse response = responseEnvelope.getResponse();
+        Map<String, Object> sessionAttributes = responseEnvelope.getSessionAttributes();
+        if (response == null || !response.isConstant()
+                || !Sdk.VERSION.equals(responseEnvelope.getVersion())
+                || (sessionAttributes != null && !sessionAttributes.isEmpty())) {
+            return null;
+        }
+
+        ConcurrentMap<SpeechletResponse, byte[]> cache =
+                sessionAttributes == null ? constantResponses
+                        : constantResponsesWithEmptyAttributes;
+        byte[] serializedResponseEnvelope = cache.get(response);
+        if (serializedResponseEnvelope != null || cache.size() >= MAX_CONSTANT_RESPONSES) {
+            return serializedResponseEnvelope;
+        }
+
+        // Cache a copy of the envelope, the one provided may hold the session's attribute map
+        SpeechletResponseEnvelope constantResponseEnvelope = new SpeechletResponseEnvelope();
+        constantResponseEnvelope.setVersion(Sdk.VERSION);
+        constantResponseEnvelope.setResponse(response);
+        if (sessionAttributes != null) {
+            constantResponseEnvelope.setSessionAttributes(Collections
+                    .<String, Object>emptyMap());
+        }
+        serializedResponseEnvelope = constantResponseEnvelope.toJsonBytes();
+
+        byte[] cached = cache.putIfAbsent(response, serializedResponseEnvelope);
+        return cached != null ? cached : serializedResponseEnvelope;
+    }
+
+    private SpeechletResponseEnvelope dispatch(SpeechletV2 speechlet,
+            SpeechletRequestEnvelope<?> requestEnvelope) throws IOException,
+            SpeechletRequestHandlerException, SpeechletException {
+        verifyRequest(requestEnvelope);
+
+        // Dispatch request to Speechlet
+        return getDispatcher(speechlet).dispatchSpeechletCall(requestEnvelope,
+                requestEnvelope.getSession());
+    }
 
+    private void verifyRequest(SpeechletRequestEnvelope<?> requestEnvelope)
+            throws SpeechletRequestHandlerException {
         final SpeechletRequest request = requestEnvelope.getRequest();
         final Session session = requestEnvelope.getSession();
 
@@ -145,15 +397,22 @@ public class SpeechletRequestHandler {
                 throw new SpeechletRequestHandlerException(message);
             }
         }
+    }
 
-        // Dispatch request to Speechlet
-        SpeechletRequestDispatcher dispatcher = new SpeechletRequestDispatcher(speechlet);
-        SpeechletResponseEnvelope responseEnvelope =
-                dispatcher.dispatchSpeechletCall(requestEnvelope, session);
+    private void verifyResponse(SpeechletRequestEnvelope<?> requestEnvelope,
+            SpeechletResponseEnvelope responseEnvelope, byte[] serializedResponseEnvelope,
+            int offset, int length) throws SpeechletRequestHandlerException {
+        final SpeechletRequest request = requestEnvelope.getRequest();
+        final Session session = requestEnvelope.getSession();
 
-        // Verify response
         for (SpeechletResponseVerifier verifier : responseVerifiers) {
-            if (!verifier.verify(responseEnvelope, session)) {
+            boolean verified =
+                    verifier instanceof SerializedSpeechletResponseVerifier
+                            ? ((SerializedSpeechletResponseVerifier) verifier).verify(
+                                    serializedResponseEnvelope, offset, length, responseEnvelope,
+                                    session)
+                            : verifier.verify(responseEnvelope, session);
+            if (!verified) {
                 String message =
                         String.format("Could not validate SpeechletResponse %s using verifier %s, "
                                 + "rejecting response", request.getRequestId(), verifier
@@ -162,8 +421,27 @@ public class SpeechletRequestHandler {
                 throw new SpeechletRequestHandlerException(message);
             }
         }
+    }
 
-        return responseEnvelope.toJsonBytes();
+    /**
+     * Returns a dispatcher for the provided speechlet, reusing the one built for the previous
+     * request if it dispatches to the same speechlet.
+     *
+     * @param speechlet
+     *            the {@link SpeechletV2} or {@link AsyncSpeechletV2} to be invoked
+     * @return the dispatcher
+     */
+    private SpeechletRequestDispatcher getDispatcher(Object speechlet) {
+        SessionStore sessionStore = this.sessionStore;
+        SpeechletRequestDispatcher dispatcher = this.dispatcher;
+        if (dispatcher == null || !dispatcher.dispatchesTo(speechlet, sessionStore)) {
+            dispatcher =
+                    speechlet instanceof AsyncSpeechletV2 ? new SpeechletRequestDispatcher(
+                            (AsyncSpeechletV2) speechlet, sessionStore)
+                            : new SpeechletRequestDispatcher((SpeechletV2) speechlet, sessionStore);
+            this.dispatcher = dispatcher;
+        }
+        return dispatcher;
     }
 
     private void addApplicationIdSpeechletRequestEnvelopeVerifierIfNecessary() {
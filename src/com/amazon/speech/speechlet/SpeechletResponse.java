@@ -18,6 +18,7 @@ import java.util.List;
 import com.amazon.speech.ui.Card;
 import com.amazon.speech.ui.OutputSpeech;
 import com.amazon.speech.ui.Reprompt;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * The response to a {@code SpeechletV2} invocation. Defines text to speak to the user, content to
@@ -33,6 +34,7 @@ public class SpeechletResponse {
     private List<Directive> directives = null;
     private Reprompt reprompt = null;
     private boolean shouldEndSession = true;
+    private boolean constant = false;
 
     /**
      * Returns the speech associated with this response.
@@ -72,6 +74,31 @@ public class SpeechletResponse {
         this.shouldEndSession = shouldEndSession;
     }
 
+    /**
+     * Returns whether this response is constant, see {@link #setConstant(boolean)}.
+     *
+     * @return whether this response is constant
+     */
+    @JsonIgnore
+    public boolean isConstant() {
+        return constant;
+    }
+
+    /**
+     * Declares this response constant: the same instance is returned for every request it answers
+     * and is never modified afterwards, including the speech, card and reprompt it holds. The
+     * {@code SpeechletRequestHandler} then serializes it once, and writes the cached bytes for
+     * every later request that has no session attributes to send back. The response verifiers
+     * still run on every request, against the cached bytes.
+     *
+     * @param constant
+     *            {@code true} if this response is constant
+     * @see SpeechletRequestHandler#prepareConstantResponse(SpeechletResponse)
+     */
+    public void setConstant(final boolean constant) {
+        this.constant = constant;
+    }
+
     /**
      * Returns the UI card associated with this response.
      *
@@ -0,0 +1,166 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import com.amazon.speech.json.SpeechletRequestEnvelope;
+
+/**
+ * Adapts a {@link SpeechletV2}, or a {@link Speechlet}, into an {@link AsyncSpeechletV2}. By
+ * default the methods of the adapted speechlet are invoked on the calling thread and the returned
+ * futures are already completed, exceptionally if the method threw.
+ * <p>
+ * When constructed with an {@link Executor}, the methods are invoked on that executor instead,
+ * which lets a host bound the threads a blocking speechlet ties up. A request the executor rejects
+ * completes its future exceptionally with the {@link RejectedExecutionException}.
+ * <p>
+ * Without an executor the adapter gains nothing over the adapted speechlet: the calling thread
+ * still does all the work, so a host in asynchronous mode, such as the {@code SpeechletServlet},
+ * needs one to release its threads.
+ */
+public class SpeechletV2ToAsyncSpeechletV2Adapter implements AsyncSpeechletV2 {
+    private final SpeechletV2 speechlet;
+    private final Executor executor;
+
+    public SpeechletV2ToAsyncSpeechletV2Adapter(SpeechletV2 speechlet) {
+        this(speechlet, null);
+    }
+
+    /**
+     * Adapts a {@link SpeechletV2} whose methods are invoked on the provided executor.
+     *
+     * @param speechlet
+     *            the speechlet to adapt
+     * @param executor
+     *            the executor the methods of the speechlet are invoked on, or {@code null} to
+     *            invoke them on the calling thread
+     */
+    public SpeechletV2ToAsyncSpeechletV2Adapter(SpeechletV2 speechlet, Executor executor) {
+        this.speechlet = speechlet;
+        this.executor = executor;
+    }
+
+    /**
+     * Adapts a {@link Speechlet} through a {@link SpeechletToSpeechletV2Adapter}. A
+     * {@link SpeechletException} thrown by the speechlet completes the future exceptionally.
+     *
+     * @param speechlet
+     *            the speechlet to adapt
+     */
+    public SpeechletV2ToAsyncSpeechletV2Adapter(Speechlet speechlet) {
+        this(new SpeechletToSpeechletV2Adapter(speechlet));
+    }
+
+    @Override
+    public CompletableFuture<Void> onSessionStarted(
+            final SpeechletRequestEnvelope<SessionStartedRequest> requestEnvelope) {
+        return invoke(new Supplier<Void>() {
+            @Override
+            public Void get() {
+                speechlet.onSessionStarted(requestEnvelope);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<SpeechletResponse> onLaunch(
+            final SpeechletRequestEnvelope<LaunchRequest> requestEnvelope) {
+        return invoke(new Supplier<SpeechletResponse>() {
+            @Override
+            public SpeechletResponse get() {
+                return speechlet.onLaunch(requestEnvelope);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<SpeechletResponse> onIntent(
+            final SpeechletRequestEnvelope<IntentRequest> requestEnvelope) {
+        return invoke(new Supplier<SpeechletResponse>() {
+            @Override
+            public SpeechletResponse get() {
+                return speechlet.onIntent(requestEnvelope);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> onSessionEnded(
+            final SpeechletRequestEnvelope<SessionEndedRequest> requestEnvelope) {
+        return invoke(new Supplier<Void>() {
+            @Override
+            public Void get() {
+                speechlet.onSessionEnded(requestEnvelope);
+                return null;
+            }
+        });
+    }
+
+    public SpeechletV2 getSpeechletV2() {
+        return speechlet;
+    }
+
+    /**
+     * Returns the {@link Speechlet} adapted, if any.
+     *
+     * @return the adapted {@code Speechlet}, or {@code null} if a {@code SpeechletV2} was adapted
+     */
+    public Speechlet getSpeechlet() {
+        if (speechlet instanceof SpeechletToSpeechletV2Adapter) {
+            return ((SpeechletToSpeechletV2Adapter) speechlet).getSpeechlet();
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the executor the methods of the speechlet are invoked on.
+     *
+     * @return the executor, or {@code null} if they are invoked on the calling thread
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    private <T> CompletableFuture<T> invoke(final Supplier<T> method) {
+        try {
+            if (executor != null) {
+                return CompletableFuture.supplyAsync(method, executor);
+            }
+            return CompletableFuture.completedFuture(method.get());
+        } catch (RuntimeException e) {
+            return failedFuture(e);
+        }
+    }
+
+    /**
+     * Returns a future completed exceptionally with the provided exception.
+     *
+     * @param ex
+     *            the exception
+     * @param <T>
+     *            the type of the future
+     * @return the failed future
+     */
+    static <T> CompletableFuture<T> failedFuture(final Throwable ex) {
+        CompletableFuture<T> future = new CompletableFuture<T>();
+        future.completeExceptionally(ex);
+        return future;
+    }
+}
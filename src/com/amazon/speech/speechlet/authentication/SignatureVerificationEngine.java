@@ -0,0 +1,107 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.authentication;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.amazon.speech.Sdk;
+
+/**
+ * Verifies request signatures with a {@link Signature} borrowed from a shared pool. Looking up the
+ * signature provider and initializing it with the public key is only done when the pool has no
+ * idle engine or the signing key changes, rather than for every request. The pool is shared by all
+ * threads, so the state is reused whether requests are handled on long-lived platform threads or
+ * on a virtual thread per request.
+ */
+final class SignatureVerificationEngine {
+    /**
+     * The most engines kept idle, enough for the concurrency of a busy host.
+     */
+    private static final int MAXIMUM_IDLE_ENGINES = 64;
+
+    private static final BlockingQueue<SignatureVerificationEngine> IDLE_ENGINES =
+            new ArrayBlockingQueue<SignatureVerificationEngine>(MAXIMUM_IDLE_ENGINES);
+
+    private Signature signature;
+    private PublicKey publicKey;
+
+    private SignatureVerificationEngine() {
+    }
+
+    /**
+     * Verifies that a region of the provided bytes was signed with the private key matching the
+     * provided public key.
+     *
+     * @param publicKey
+     *            the public key of the signing certificate
+     * @param data
+     *            the bytes holding the signed data
+     * @param offset
+     *            the offset of the signed data in the bytes
+     * @param length
+     *            the length of the signed data in the bytes
+     * @param baseEncoded64Signature
+     *            the Base64 encoded signature
+     * @return true if the signature is valid, false otherwise
+     * @throws NoSuchAlgorithmException
+     *             if {@value Sdk#SIGNATURE_ALGORITHM} is not supported
+     * @throws InvalidKeyException
+     *             if the public key is invalid
+     * @throws SignatureException
+     *             if the signature can't be processed
+     */
+    static boolean verify(final PublicKey publicKey, final byte[] data, final int offset,
+            final int length, final String baseEncoded64Signature)
+            throws NoSuchAlgorithmException, InvalidKeyException, SignatureException {
+        byte[] decodedSignature;
+        try {
+            decodedSignature = Base64.getMimeDecoder().decode(baseEncoded64Signature);
+        } catch (IllegalArgumentException ex) {
+            throw new SignatureException("Signature is not valid Base64", ex);
+        }
+
+        SignatureVerificationEngine engine = IDLE_ENGINES.poll();
+        if (engine == null) {
+            engine = new SignatureVerificationEngine();
+        }
+
+        Signature signature = engine.initializedSignature(publicKey);
+        signature.update(data, offset, length);
+        // Verifying resets the signature to its initialized state, ready for the next request
+        boolean verified = signature.verify(decodedSignature);
+
+        // An engine that threw is left in an unknown state and is not returned to the pool
+        IDLE_ENGINES.offer(engine);
+        return verified;
+    }
+
+    private Signature initializedSignature(final PublicKey publicKey)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        if (signature == null) {
+            signature = Signature.getInstance(Sdk.SIGNATURE_ALGORITHM);
+        }
+        if (!publicKey.equals(this.publicKey)) {
+            signature.initVerify(publicKey);
+            this.publicKey = publicKey;
+        }
+        return signature;
+    }
+}
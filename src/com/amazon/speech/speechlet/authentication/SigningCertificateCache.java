@@ -0,0 +1,344 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.authentication;
+
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateExpiredException;
+import java.security.cert.CertificateNotYetValidException;
+import java.security.cert.X509Certificate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache of verified signing certificates, keyed by the URL of their certificate chain.
+ * <p>
+ * Each certificate is only returned while it is valid, and is downloaded again once it isn't. Cached certificates are reloaded
+ * in the background, every refresh interval and shortly before they expire, so that a rotated
+ * certificate is picked up without a request having to wait for the download. Concurrent requests
+ * for a URL that isn't cached share a single download. Once the cache is full, the least recently
+ * used URL is evicted.
+ * <p>
+ * This class is thread-safe.
+ */
+public class SigningCertificateCache {
+    private static final Logger log = LoggerFactory.getLogger(SigningCertificateCache.class);
+
+    /**
+     * Default maximum number of certificate chain URLs kept in the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 16;
+
+    /**
+     * Default interval, in milliseconds, between background reloads of a cached certificate.
+     */
+    public static final long DEFAULT_REFRESH_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(12);
+
+    /**
+     * Default time, in milliseconds, before its expiry a cached certificate is reloaded.
+     */
+    public static final long DEFAULT_EXPIRY_MARGIN_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * Delay, in milliseconds, before a failed background reload is retried.
+     */
+    private static final long RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Downloads and verifies the signing certificate at a certificate chain URL.
+     */
+    public interface CertificateLoader {
+        /**
+         * Returns the verified signing certificate at the provided URL.
+         *
+         * @param signingCertificateChainUrl
+         *            the URL of the certificate chain
+         * @return the signing certificate
+         * @throws CertificateException
+         *             if the certificate can't be retrieved or is invalid
+         */
+        X509Certificate load(String signingCertificateChainUrl) throws CertificateException;
+    }
+
+    private final CertificateLoader loader;
+    private final int maximumSize;
+    private final long refreshIntervalMillis;
+    private final long expiryMarginMillis;
+    private final Map<String, Entry> entries;
+    private final ConcurrentMap<String, CompletableFuture<X509Certificate>> inFlight =
+            new ConcurrentHashMap<String, CompletableFuture<X509Certificate>>();
+    private final ScheduledThreadPoolExecutor refreshExecutor;
+
+    /**
+     * Constructs a cache loading certificates with
+     * {@link SpeechletRequestSignatureVerifier#retrieveAndVerifyCertificateChain(String)}.
+     */
+    public SigningCertificateCache() {
+        this(new CertificateLoader() {
+            @Override
+            public X509Certificate load(String signingCertificateChainUrl)
+                    throws CertificateException {
+                return SpeechletRequestSignatureVerifier
+                        .retrieveAndVerifyCertificateChain(signingCertificateChainUrl);
+            }
+        }, DEFAULT_MAXIMUM_SIZE, DEFAULT_REFRESH_INTERVAL_MILLIS, DEFAULT_EXPIRY_MARGIN_MILLIS);
+    }
+
+    /**
+     * @param loader
+     *            downloads and verifies the certificates, e.g. from a local stand-in in tests
+     * @param maximumSize
+     *            the maximum number of certificate chain URLs to keep
+     * @param refreshIntervalMillis
+     *            interval, in milliseconds, between background reloads of a cached certificate
+     * @param expiryMarginMillis
+     *            time, in milliseconds, before its expiry a cached certificate is reloaded
+     */
+    public SigningCertificateCache(final CertificateLoader loader, final int maximumSize,
+            final long refreshIntervalMillis, final long expiryMarginMillis) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        if (refreshIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Refresh interval must be positive");
+        }
+        if (expiryMarginMillis < 0) {
+            throw new IllegalArgumentException("A negative expiry margin is not supported");
+        }
+
+        this.loader = loader;
+        this.maximumSize = maximumSize;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.expiryMarginMillis = expiryMarginMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                if (size() > SigningCertificateCache.this.maximumSize) {
+                    eldest.getValue().cancelRefresh();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        refreshExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "SigningCertificateCache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        refreshExecutor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Returns the verified signing certificate at the provided URL, downloading it if it isn't
+     * cached or is not valid at the present time.
+     *
+     * @param signingCertificateChainUrl
+     *            the URL of the certificate chain
+     * @return the signing certificate
+     * @throws CertificateException
+     *             if the certificate can't be retrieved or is invalid
+     */
+    public X509Certificate get(final String signingCertificateChainUrl)
+            throws CertificateException {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(signingCertificateChainUrl);
+        }
+
+        if (entry != null && entry.isValid()) {
+            return entry.certificate;
+        }
+
+        return load(signingCertificateChainUrl);
+    }
+
+    /**
+     * Removes all certificates from the cache.
+     */
+    public void clear() {
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                entry.cancelRefresh();
+            }
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of certificates currently held, including any that are no longer valid but
+     * have not yet been reloaded.
+     *
+     * @return the number of certificates
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Stops the background reloads. Certificates are still loaded on demand.
+     */
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Loads the certificate at the provided URL, waiting for a load already in flight if there is
+     * one, and caches it.
+     */
+    private X509Certificate load(final String signingCertificateChainUrl)
+            throws CertificateException {
+        CompletableFuture<X509Certificate> flight = new CompletableFuture<X509Certificate>();
+        CompletableFuture<X509Certificate> existing =
+                inFlight.putIfAbsent(signingCertificateChainUrl, flight);
+        if (existing != null) {
+            return await(existing, signingCertificateChainUrl);
+        }
+
+        try {
+            X509Certificate certificate = loader.load(signingCertificateChainUrl);
+            put(signingCertificateChainUrl, certificate);
+            flight.complete(certificate);
+            return certificate;
+        } catch (CertificateException | RuntimeException ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(signingCertificateChainUrl, flight);
+        }
+    }
+
+    private void put(final String signingCertificateChainUrl, final X509Certificate certificate) {
+        Entry entry = new Entry(certificate);
+        synchronized (entries) {
+            Entry previous = entries.put(signingCertificateChainUrl, entry);
+            if (previous != null) {
+                previous.cancelRefresh();
+            }
+            scheduleRefresh(signingCertificateChainUrl, entry, nextRefreshDelay(entry));
+        }
+    }
+
+    private long nextRefreshDelay(final Entry entry) {
+        long untilExpiry = entry.notAfter - expiryMarginMillis - System.currentTimeMillis();
+        if (untilExpiry <= 0) {
+            // Already within the margin, don't reload it in a loop
+            return Math.min(RETRY_DELAY_MILLIS, refreshIntervalMillis);
+        }
+        return Math.min(refreshIntervalMillis, untilExpiry);
+    }
+
+    private void scheduleRefresh(final String signingCertificateChainUrl, final Entry entry,
+            final long delayMillis) {
+        if (refreshExecutor.isShutdown()) {
+            return;
+        }
+
+        entry.refresh = refreshExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                refresh(signingCertificateChainUrl, entry);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void refresh(final String signingCertificateChainUrl, final Entry entry) {
+        synchronized (entries) {
+            if (entries.get(signingCertificateChainUrl) != entry) {
+                // Evicted or already replaced
+                return;
+            }
+        }
+
+        try {
+            load(signingCertificateChainUrl);
+        } catch (CertificateException | RuntimeException ex) {
+            log.warn("Failed to refresh signing certificate at {}, keeping the cached one",
+                    signingCertificateChainUrl, ex);
+            synchronized (entries) {
+                if (entries.get(signingCertificateChainUrl) == entry) {
+                    scheduleRefresh(signingCertificateChainUrl, entry,
+                            Math.min(RETRY_DELAY_MILLIS, refreshIntervalMillis));
+                }
+            }
+        }
+    }
+
+    private static X509Certificate await(final CompletableFuture<X509Certificate> flight,
+            final String signingCertificateChainUrl) throws CertificateException {
+        try {
+            return flight.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CertificateException("Interrupted while retrieving certificate at URL: "
+                    + signingCertificateChainUrl, ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof CertificateException) {
+                throw (CertificateException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CertificateException("Unable to retrieve certificate at URL: "
+                    + signingCertificateChainUrl, cause);
+        }
+    }
+
+    private static final class Entry {
+        private final X509Certificate certificate;
+        private final long notAfter;
+        private ScheduledFuture<?> refresh;
+
+        private Entry(final X509Certificate certificate) {
+            this.certificate = certificate;
+            this.notAfter = certificate.getNotAfter().getTime();
+        }
+
+        /**
+         * Checks the before/after dates on the certificate are still valid for the present time.
+         */
+        private boolean isValid() {
+            try {
+                certificate.checkValidity();
+                return true;
+            } catch (CertificateExpiredException | CertificateNotYetValidException ex) {
+                return false;
+            }
+        }
+
+        private void cancelRefresh() {
+            if (refresh != null) {
+                refresh.cancel(false);
+            }
+        }
+    }
+}
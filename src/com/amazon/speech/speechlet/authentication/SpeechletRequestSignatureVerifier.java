@@ -13,6 +13,7 @@
 
 package com.amazon.speech.speechlet.authentication;
 
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
@@ -22,22 +23,22 @@ import java.net.URL;
 import java.security.InvalidKeyException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.security.Signature;
 import java.security.SignatureException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
 
-import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
 
 import com.amazon.speech.Sdk;
 
@@ -45,16 +46,66 @@ import com.amazon.speech.Sdk;
  * Provides a utility method to verify the signature of a speechlet request.
  */
 public final class SpeechletRequestSignatureVerifier {
-    private static final Map<String, X509Certificate> CERTIFICATE_CACHE = new ConcurrentHashMap<>();
     private static final Integer DOMAIN_NAME_SUBJECT_ALTERNATIVE_NAME_ENTRY = 2;
     private static final String VALID_SIGNING_CERT_CHAIN_PROTOCOL = "https";
     private static final String VALID_SIGNING_CERT_CHAIN_URL_HOST_NAME = "s3.amazonaws.com";
     private static final String VALID_SIGNING_CERT_CHAING_URL_PATH_PREFIX = "/echo.api/";
     private static final int UNSPECIFIED_SIGNING_CERT_CHAIN_URL_PORT_VALUE = -1;
 
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    private static final int MAX_TRUSTED_CHAINS = 64;
+
+    /**
+     * Expiry time of the certificate chains found trusted, by fingerprint. Also guards the loading
+     * of the trust manager.
+     */
+    private static final Map<String, Long> TRUSTED_CHAINS = new LinkedHashMap<String, Long>(16,
+            0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Long> eldest) {
+            return size() > MAX_TRUSTED_CHAINS;
+        }
+    };
+
+    private static volatile X509TrustManager trustManager;
+
+    private static volatile SigningCertificateCache certificateCache =
+            new SigningCertificateCache();
+
     private SpeechletRequestSignatureVerifier() {
     }
 
+    /**
+     * Returns the cache of verified signing certificates.
+     *
+     * @return the certificate cache
+     */
+    public static SigningCertificateCache getSigningCertificateCache() {
+        return certificateCache;
+    }
+
+    /**
+     * Replaces the cache of verified signing certificates, e.g. with one loading certificates from
+     * a local stand-in in tests. The background reloads of the replaced cache are stopped.
+     *
+     * @param signingCertificateCache
+     *            the certificate cache
+     */
+    public static void setSigningCertificateCache(
+            final SigningCertificateCache signingCertificateCache) {
+        if (signingCertificateCache == null) {
+            throw new IllegalArgumentException("A null certificate cache is not supported");
+        }
+
+        SigningCertificateCache previous = certificateCache;
+        certificateCache = signingCertificateCache;
+        if (previous != signingCertificateCache) {
+            previous.shutdown();
+        }
+    }
+
     /**
      * Verifies the certificate authenticity using the configured TrustStore and the signature of
      * the speechlet request.
@@ -68,38 +119,45 @@ public final class SpeechletRequestSignatureVerifier {
      */
     public static void checkRequestSignature(final byte[] serializedSpeechletRequest,
             final String baseEncoded64Signature, final String signingCertificateChainUrl) {
+        checkRequestSignature(serializedSpeechletRequest, 0, serializedSpeechletRequest.length,
+                baseEncoded64Signature, signingCertificateChainUrl);
+    }
+
+    /**
+     * Verifies the certificate authenticity using the configured TrustStore and the signature of
+     * the speechlet request held in a region of a byte array.
+     *
+     * @param serializedSpeechletRequest
+     *            the bytes holding the speechlet request serialized as a string of JSON
+     * @param offset
+     *            the offset of the speechlet request in the bytes
+     * @param length
+     *            the length of the speechlet request in the bytes
+     * @param baseEncoded64Signature
+     *            the signature for provided in the request header
+     * @param signingCertificateChainUrl
+     *            the certificate chain URL provided in the request header
+     */
+    public static void checkRequestSignature(final byte[] serializedSpeechletRequest,
+            final int offset, final int length, final String baseEncoded64Signature,
+            final String signingCertificateChainUrl) {
         if ((baseEncoded64Signature == null) || (signingCertificateChainUrl == null)) {
             throw new SecurityException(
                     "Missing signature/certificate for the provided speechlet request");
         }
 
         try {
-            X509Certificate signingCertificate;
-            if (CERTIFICATE_CACHE.containsKey(signingCertificateChainUrl)) {
-                signingCertificate = CERTIFICATE_CACHE.get(signingCertificateChainUrl);
-                /*
-                 * check the before/after dates on the certificate are still valid for the present
-                 * time
-                 */
-                signingCertificate.checkValidity();
-            } else {
-                signingCertificate = retrieveAndVerifyCertificateChain(signingCertificateChainUrl);
-
-                // if certificate is valid, then add it to the cache
-                CERTIFICATE_CACHE.put(signingCertificateChainUrl, signingCertificate);
-            }
+            X509Certificate signingCertificate =
+                    certificateCache.get(signingCertificateChainUrl);
 
             // verify that the request was signed by the provided certificate
-            Signature signature = Signature.getInstance(Sdk.SIGNATURE_ALGORITHM);
-            signature.initVerify(signingCertificate.getPublicKey());
-            signature.update(serializedSpeechletRequest);
-            if (!signature.verify(Base64.decodeBase64(baseEncoded64Signature
-                    .getBytes(Sdk.CHARACTER_ENCODING)))) {
+            if (!SignatureVerificationEngine.verify(signingCertificate.getPublicKey(),
+                    serializedSpeechletRequest, offset, length, baseEncoded64Signature)) {
                 throw new SecurityException(
                         "Failed to verify the signature/certificate for the provided speechlet request");
             }
         } catch (CertificateException | SignatureException | NoSuchAlgorithmException
-                | InvalidKeyException | IOException ex) {
+                | InvalidKeyException ex) {
             throw new SecurityException(
                     "Failed to verify the signature/certificate for the provided speechlet request",
                     ex);
@@ -132,25 +190,8 @@ public final class SpeechletRequestSignatureVerifier {
             signingCertificate.checkValidity();
 
             // check the certificate chain
-            TrustManagerFactory trustManagerFactory =
-                    TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
-            trustManagerFactory.init((KeyStore) null);
-
-            X509TrustManager x509TrustManager = null;
-            for (TrustManager trustManager : trustManagerFactory.getTrustManagers()) {
-                if (trustManager instanceof X509TrustManager) {
-                    x509TrustManager = (X509TrustManager) trustManager;
-                }
-            }
-
-            if (x509TrustManager == null) {
-                throw new IllegalStateException(
-                        "No X509 TrustManager available. Unable to check certificate chain");
-            } else {
-                x509TrustManager.checkServerTrusted(
-                        certificateChain.toArray(new X509Certificate[certificateChain.size()]),
-                        Sdk.SIGNATURE_KEY_TYPE);
-            }
+            checkCertificateChainTrusted(certificateChain
+                    .toArray(new X509Certificate[certificateChain.size()]));
 
             /*
              * verify Echo API's hostname is specified as one of subject alternative names on the
@@ -169,6 +210,118 @@ public final class SpeechletRequestSignatureVerifier {
         }
     }
 
+    /**
+     * Replaces the trust store used to validate certificate chains, e.g. with one holding a locally
+     * generated certificate authority in tests. Previously validated chains are forgotten.
+     *
+     * @param trustStore
+     *            the trust store, or {@code null} to go back to the configured one
+     * @throws CertificateException
+     *             if no X509 trust manager can be created for the trust store
+     */
+    public static void setTrustStore(final KeyStore trustStore) throws CertificateException {
+        try {
+            synchronized (TRUSTED_CHAINS) {
+                trustManager = trustStore != null ? createTrustManager(trustStore) : null;
+                TRUSTED_CHAINS.clear();
+            }
+        } catch (KeyStoreException | NoSuchAlgorithmException ex) {
+            throw new CertificateException("Unable to use the provided trust store", ex);
+        }
+    }
+
+    /**
+     * Checks that the provided certificate chain is trusted. Chains that have been found trusted
+     * before are recognized by their fingerprint until their first certificate expires.
+     */
+    static void checkCertificateChainTrusted(final X509Certificate[] certificateChain)
+            throws CertificateException, KeyStoreException, IOException, NoSuchAlgorithmException {
+        String fingerprint = fingerprint(certificateChain);
+        long now = System.currentTimeMillis();
+        synchronized (TRUSTED_CHAINS) {
+            Long trustedUntil = TRUSTED_CHAINS.get(fingerprint);
+            if (trustedUntil != null && now < trustedUntil) {
+                return;
+            }
+        }
+
+        X509TrustManager x509TrustManager = getTrustManager();
+        x509TrustManager.checkServerTrusted(certificateChain, Sdk.SIGNATURE_KEY_TYPE);
+
+        long trustedUntil = Long.MAX_VALUE;
+        for (X509Certificate certificate : certificateChain) {
+            trustedUntil = Math.min(trustedUntil, certificate.getNotAfter().getTime());
+        }
+        synchronized (TRUSTED_CHAINS) {
+            // Unless the trust store has been replaced in the meantime
+            if (trustManager == x509TrustManager) {
+                TRUSTED_CHAINS.put(fingerprint, trustedUntil);
+            }
+        }
+    }
+
+    private static String fingerprint(final X509Certificate[] certificateChain)
+            throws CertificateException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+        for (X509Certificate certificate : certificateChain) {
+            digest.update(certificate.getEncoded());
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * Returns the X509 trust manager, loading the trust material on first use.
+     */
+    private static X509TrustManager getTrustManager() throws CertificateException,
+            KeyStoreException, IOException, NoSuchAlgorithmException {
+        X509TrustManager current = trustManager;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (TRUSTED_CHAINS) {
+            if (trustManager == null) {
+                trustManager = createTrustManager(loadConfiguredTrustStore());
+            }
+            return trustManager;
+        }
+    }
+
+    /**
+     * Returns the trust store named by {@link Sdk#SIGNATURE_TRUST_STORE_SYSTEM_PROPERTY}, or
+     * {@code null} for the default trust store of the JVM.
+     */
+    private static KeyStore loadConfiguredTrustStore() throws CertificateException,
+            KeyStoreException, IOException, NoSuchAlgorithmException {
+        String path = System.getProperty(Sdk.SIGNATURE_TRUST_STORE_SYSTEM_PROPERTY);
+        if (path == null || path.trim().isEmpty()) {
+            return null;
+        }
+
+        String password = System.getProperty(Sdk.SIGNATURE_TRUST_STORE_PASSWORD_SYSTEM_PROPERTY);
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        try (InputStream in = new FileInputStream(path.trim())) {
+            trustStore.load(in, password != null ? password.toCharArray() : null);
+        }
+        return trustStore;
+    }
+
+    private static X509TrustManager createTrustManager(final KeyStore trustStore)
+            throws KeyStoreException, NoSuchAlgorithmException {
+        TrustManagerFactory trustManagerFactory =
+                TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+
+        for (TrustManager trustManager : trustManagerFactory.getTrustManagers()) {
+            if (trustManager instanceof X509TrustManager) {
+                return (X509TrustManager) trustManager;
+            }
+        }
+
+        throw new IllegalStateException(
+                "No X509 TrustManager available. Unable to check certificate chain");
+    }
+
     private static boolean subjectAlernativeNameListContainsEchoSdkDomainName(
             final Collection<List<?>> subjectAlternativeNameEntries) {
         for (List<?> entry : subjectAlternativeNameEntries) {
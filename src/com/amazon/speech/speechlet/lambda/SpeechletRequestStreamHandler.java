@@ -13,19 +13,35 @@
 
 package com.amazon.speech.speechlet.lambda;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
 import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import com.amazon.speech.speechlet.AsyncSpeechletV2;
+import com.amazon.speech.speechlet.PooledByteArrayOutputStream;
 import com.amazon.speech.speechlet.Speechlet;
 import com.amazon.speech.speechlet.SpeechletException;
+import com.amazon.speech.speechlet.SpeechletRequestDispatcher;
 import com.amazon.speech.speechlet.SpeechletRequestHandler;
 import com.amazon.speech.speechlet.SpeechletRequestHandlerException;
+import com.amazon.speech.speechlet.SpeechletResponse;
 import com.amazon.speech.speechlet.SpeechletToSpeechletV2Adapter;
 import com.amazon.speech.speechlet.SpeechletV2;
+import com.amazon.speech.speechlet.store.SessionStore;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
 
@@ -43,12 +59,47 @@ import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
  * super constructor from your new constructor.
  *
  * <p>
+ * An {@code AsyncSpeechletV2} may be passed instead. As the Lambda invocation ends when
+ * {@link #handleRequest(InputStream, OutputStream, Context)} returns, the handler waits for its
+ * response, but the speechlet is free to run independent upstream calls concurrently.
+ *
+ * <p>
+ * Lambda keeps the handler instance for as long as the container stays warm, so everything it
+ * holds, the request handler with its verifiers and dispatcher as well as the pooled request and
+ * response buffers, is set up once per container and reused by every invocation. Reuse is logged
+ * at debug level after each invocation.
+ *
+ * <p>
  * When configuring your Lambda function in the AWS Lambda console, specify your new class as the
  * <strong>Handler</strong>.
  */
 public abstract class SpeechletRequestStreamHandler implements RequestStreamHandler {
+    private static final Logger log = LoggerFactory.getLogger(SpeechletRequestStreamHandler.class);
+
+    /**
+     * Application ID of priming requests when application ID verification is disabled.
+     */
+    private static final String PRIMING_APPLICATION_ID = "amzn1.ask.skill.priming";
+
+    /**
+     * Template of priming requests, taking the application ID, request type and timestamp. The
+     * session is not new, so that {@code onSessionStarted} is not invoked.
+     */
+    private static final String PRIMING_REQUEST = "{\"version\":\"1.0\","
+            + "\"session\":{\"new\":false,\"sessionId\":\"amzn1.echo-api.session.priming\","
+            + "\"application\":{\"applicationId\":\"%1$s\"},"
+            + "\"user\":{\"userId\":\"amzn1.ask.account.priming\"}},"
+            + "\"context\":{\"System\":{\"application\":{\"applicationId\":\"%1$s\"}}},"
+            + "\"request\":{\"type\":\"%2$s\",\"requestId\":\"amzn1.echo-api.request.priming\","
+            + "\"timestamp\":\"%3$s\",\"locale\":\"en-US\"}}";
+
+    private static final String PRIMING_TIMESTAMP_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+
     private final SpeechletV2 speechlet;
+    private final AsyncSpeechletV2 asyncSpeechlet;
     private final SpeechletRequestHandler speechletRequestHandler;
+    private final Set<String> supportedApplicationIds;
+    private final AtomicLong invocationCount = new AtomicLong();
 
     /**
      * When extending this class, use a zero argument constructor and pass the appropriate
@@ -62,13 +113,75 @@ public abstract class SpeechletRequestStreamHandler implements RequestStreamHand
      */
     public SpeechletRequestStreamHandler(SpeechletV2 speechlet, Set<String> supportedApplicationIds) {
         this.speechlet = speechlet;
+        this.asyncSpeechlet = null;
         this.speechletRequestHandler = new LambdaSpeechletRequestHandler(supportedApplicationIds);
+        this.supportedApplicationIds = supportedApplicationIds;
+    }
+
+    /**
+     * When extending this class, use a zero argument constructor and pass the appropriate
+     * {@code AsyncSpeechletV2} and {@code Set} of supported {@code ApplicationId}s to this method.
+     *
+     * @param speechlet
+     *            the {@code AsyncSpeechletV2} that handles the requests
+     * @param supportedApplicationIds
+     *            a {@code Set} of supported {@code ApplicationId}s used to validate that the
+     *            requests are intended for your service
+     */
+    public SpeechletRequestStreamHandler(AsyncSpeechletV2 speechlet,
+            Set<String> supportedApplicationIds) {
+        this.speechlet = null;
+        this.asyncSpeechlet = speechlet;
+        this.speechletRequestHandler = new LambdaSpeechletRequestHandler(supportedApplicationIds);
+        this.supportedApplicationIds = supportedApplicationIds;
     }
 
     public SpeechletRequestStreamHandler(Speechlet speechlet, Set<String> supportedApplicationIds) {
         this(new SpeechletToSpeechletV2Adapter(speechlet), supportedApplicationIds);
     }
 
+    /**
+     * When extending this class, use a zero argument constructor and pass the appropriate
+     * {@code SpeechletV2}, {@code Set} of supported {@code ApplicationId}s and {@code SessionStore}
+     * to this method.
+     *
+     * @param speechlet
+     *            the {@code SpeechletV2} that handles the requests
+     * @param supportedApplicationIds
+     *            a {@code Set} of supported {@code ApplicationId}s used to validate that the
+     *            requests are intended for your service
+     * @param sessionStore
+     *            the {@code SessionStore} session attributes are kept in instead of the request
+     *            and response envelopes. As Lambda may route the requests of a session to
+     *            different containers, it should be shared between containers.
+     */
+    public SpeechletRequestStreamHandler(SpeechletV2 speechlet,
+            Set<String> supportedApplicationIds, SessionStore sessionStore) {
+        this(speechlet, supportedApplicationIds);
+        this.speechletRequestHandler.setSessionStore(sessionStore);
+    }
+
+    /**
+     * When extending this class, use a zero argument constructor and pass the appropriate
+     * {@code AsyncSpeechletV2}, {@code Set} of supported {@code ApplicationId}s and
+     * {@code SessionStore} to this method.
+     *
+     * @param speechlet
+     *            the {@code AsyncSpeechletV2} that handles the requests
+     * @param supportedApplicationIds
+     *            a {@code Set} of supported {@code ApplicationId}s used to validate that the
+     *            requests are intended for your service
+     * @param sessionStore
+     *            the {@code SessionStore} session attributes are kept in instead of the request
+     *            and response envelopes. As Lambda may route the requests of a session to
+     *            different containers, it should be shared between containers.
+     */
+    public SpeechletRequestStreamHandler(AsyncSpeechletV2 speechlet,
+            Set<String> supportedApplicationIds, SessionStore sessionStore) {
+        this(speechlet, supportedApplicationIds);
+        this.speechletRequestHandler.setSessionStore(sessionStore);
+    }
+
     /**
      * This method is the primary entry point when executing your Lambda function. The configured
      * {@code SpeechletRequestHandler} determines the type of request and dispatches the request to
@@ -82,16 +195,116 @@ public abstract class SpeechletRequestStreamHandler implements RequestStreamHand
     @Override
     public final void handleRequest(InputStream input, OutputStream output, Context context)
             throws IOException {
-        byte[] serializedSpeechletRequest = IOUtils.toByteArray(input);
-        byte[] outputBytes;
+        handle(input, output);
+
+        long invocations = invocationCount.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Invocation {} of this container, {} of {} buffers reused", invocations,
+                    PooledByteArrayOutputStream.getReuseCount(),
+                    PooledByteArrayOutputStream.getAcquireCount());
+        }
+    }
+
+    /**
+     * Returns the number of invocations this handler, and so this container, has served. Priming
+     * is not counted.
+     *
+     * @return the invocation count
+     */
+    public long getInvocationCount() {
+        return invocationCount.get();
+    }
+
+    /**
+     * Runs a synthetic request of the provided type through the same parse, dispatch and serialize
+     * path as {@link #handleRequest(InputStream, OutputStream, Context)}. Call it from the
+     * constructor of the subclass, so that the class loading and initialization this path needs
+     * happens in the init phase of the Lambda container instead of the first invocation.
+     * <p>
+     * The request is dispatched to the speechlet, so pick a type the speechlet handles without
+     * side effects, typically {@code LaunchRequest}. It is handled without the session store, so
+     * its session is never stored. A failure is logged and otherwise ignored.
+     *
+     * @param requestType
+     *            the type of the request, as in the {@code type} field of the request JSON
+     */
+    protected final void prime(final String requestType) {
+        String applicationId =
+                supportedApplicationIds.isEmpty() ? PRIMING_APPLICATION_ID
+                        : supportedApplicationIds.iterator().next();
+        SimpleDateFormat timestampFormat =
+                new SimpleDateFormat(PRIMING_TIMESTAMP_FORMAT, Locale.US);
+        timestampFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String request =
+                String.format(PRIMING_REQUEST, applicationId, requestType,
+                        timestampFormat.format(new Date()));
+
+        SessionStore sessionStore = speechletRequestHandler.getSessionStore();
+        speechletRequestHandler.setSessionStore(null);
+        long start = System.nanoTime();
         try {
-            outputBytes =
-                    speechletRequestHandler.handleSpeechletCall(speechlet,
-                            serializedSpeechletRequest);
-        } catch (SpeechletRequestHandlerException | SpeechletException ex) {
-            throw new RuntimeException(ex);
+            handle(new ByteArrayInputStream(request.getBytes(StandardCharsets.UTF_8)),
+                    new NullOutputStream());
+            log.info("Primed {} handling in {} ms", requestType,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Priming with a {} failed after {} ms", requestType,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), e);
+        } finally {
+            speechletRequestHandler.setSessionStore(sessionStore);
         }
+    }
 
-        output.write(outputBytes);
+    /**
+     * Serializes the provided constant responses, so that the requests they answer only verify and
+     * copy their cached bytes. Like {@link #prime(String)}, call it from the constructor of the
+     * subclass. A response that fails is logged and is then prepared on first use instead.
+     *
+     * @param responses
+     *            the constant responses of the speechlet
+     * @see SpeechletRequestHandler#prepareConstantResponse(SpeechletResponse)
+     */
+    protected final void prepareConstantResponses(final SpeechletResponse... responses) {
+        int prepared = 0;
+        for (SpeechletResponse response : responses) {
+            try {
+                speechletRequestHandler.prepareConstantResponse(response);
+                prepared++;
+            } catch (IOException e) {
+                log.warn("Preparing a constant response failed", e);
+            }
+        }
+        log.info("Prepared {} of {} constant responses", prepared, responses.length);
+    }
+
+    private void handle(InputStream input, OutputStream output) throws IOException {
+        try (PooledByteArrayOutputStream serializedSpeechletRequest =
+                PooledByteArrayOutputStream.acquire();
+                PooledByteArrayOutputStream serializedSpeechletResponse =
+                        PooledByteArrayOutputStream.acquire()) {
+            serializedSpeechletRequest.readFrom(input);
+            try {
+                if (asyncSpeechlet != null) {
+                    speechletRequestHandler.handleSpeechletCallAsync(asyncSpeechlet,
+                            serializedSpeechletRequest.getBuffer(), 0,
+                            serializedSpeechletRequest.size(), serializedSpeechletResponse).join();
+                } else {
+                    speechletRequestHandler.handleSpeechletCall(speechlet,
+                            serializedSpeechletRequest.getBuffer(), 0,
+                            serializedSpeechletRequest.size(), serializedSpeechletResponse);
+                }
+            } catch (SpeechletRequestHandlerException | SpeechletException ex) {
+                throw new RuntimeException(ex);
+            } catch (CompletionException ex) {
+                Throwable cause = SpeechletRequestDispatcher.unwrapException(ex);
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw cause instanceof RuntimeException ? (RuntimeException) cause
+                        : new RuntimeException(cause);
+            }
+
+            serializedSpeechletResponse.writeTo(output);
+        }
     }
 }
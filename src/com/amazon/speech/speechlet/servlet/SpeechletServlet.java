@@ -13,23 +13,35 @@
 
 package com.amazon.speech.speechlet.servlet;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
 
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.amazon.speech.Sdk;
+import com.amazon.speech.speechlet.AsyncSpeechletV2;
+import com.amazon.speech.speechlet.PooledByteArrayOutputStream;
 import com.amazon.speech.speechlet.Speechlet;
+import com.amazon.speech.speechlet.SpeechletRequestDispatcher;
 import com.amazon.speech.speechlet.SpeechletRequestHandlerException;
 import com.amazon.speech.speechlet.SpeechletToSpeechletV2Adapter;
 import com.amazon.speech.speechlet.SpeechletV2;
+import com.amazon.speech.speechlet.SpeechletV2ToAsyncSpeechletV2Adapter;
 import com.amazon.speech.speechlet.authentication.SpeechletRequestSignatureVerifier;
+import com.amazon.speech.speechlet.store.SessionStore;
 
 /**
  * <p>
@@ -43,13 +55,23 @@ import com.amazon.speech.speechlet.authentication.SpeechletRequestSignatureVerif
  * exception cases.
  *
  * @see SpeechletV2
+ * @see AsyncSpeechletV2
  * @see #setSpeechlet(SpeechletV2)
+ * @see #setSpeechlet(AsyncSpeechletV2)
  */
 public class SpeechletServlet extends HttpServlet {
     private static final Logger log = LoggerFactory.getLogger(SpeechletServlet.class);
     private static final long serialVersionUID = 3257254794185762002L;
 
+    /**
+     * Default time an asynchronous request may take before it is answered with a 503. The Alexa
+     * service gives up on a skill after 8 seconds.
+     */
+    public static final long DEFAULT_ASYNC_TIMEOUT_MILLIS = 8000;
+
+    private volatile long asyncTimeoutMillis = DEFAULT_ASYNC_TIMEOUT_MILLIS;
     private transient SpeechletV2 speechlet;
+    private transient AsyncSpeechletV2 asyncSpeechlet;
     private transient ServletSpeechletRequestHandler speechletRequestHandler;
     private final boolean disableRequestSignatureCheck;
 
@@ -75,41 +97,195 @@ public class SpeechletServlet extends HttpServlet {
     @Override
     protected void doPost(final HttpServletRequest request, final HttpServletResponse response)
             throws IOException {
-        byte[] serializedSpeechletRequest = IOUtils.toByteArray(request.getInputStream());
-        byte[] outputBytes = null;
+        if (asyncSpeechlet != null) {
+            doPostAsync(request, response);
+            return;
+        }
+
+        // The request and response are held in pooled buffers; the request bytes are shared by
+        // the signature check and the deserialization
+        try (PooledByteArrayOutputStream serializedSpeechletRequest =
+                PooledByteArrayOutputStream.acquire();
+                PooledByteArrayOutputStream serializedSpeechletResponse =
+                        PooledByteArrayOutputStream.acquire()) {
+            serializedSpeechletRequest.readFrom(request.getInputStream());
+
+            try {
+                checkRequestSignature(request, serializedSpeechletRequest);
+                speechletRequestHandler.handleSpeechletCall(speechlet,
+                        serializedSpeechletRequest.getBuffer(), 0,
+                        serializedSpeechletRequest.size(), serializedSpeechletResponse);
+            } catch (Exception ex) {
+                sendError(response, ex);
+                return;
+            }
 
+            writeResponse(response, serializedSpeechletResponse);
+        }
+    }
+
+    /**
+     * Handles a POST request for an {@code AsyncSpeechletV2}. When the container supports it, the
+     * request is put in asynchronous mode and the container thread is released while the
+     * speechlet completes the response; otherwise the container thread waits for it.
+     */
+    private void doPostAsync(final HttpServletRequest request, final HttpServletResponse response)
+            throws IOException {
+        final PooledByteArrayOutputStream serializedSpeechletResponse =
+                PooledByteArrayOutputStream.acquire();
+        boolean responseBufferHandedOff = false;
         try {
-            if (disableRequestSignatureCheck) {
-                log.warn("Warning: Speechlet request signature verification has been disabled!");
-            } else {
-                // Verify the authenticity of the request by checking the provided signature &
-                // certificate.
-                SpeechletRequestSignatureVerifier.checkRequestSignature(serializedSpeechletRequest,
-                        request.getHeader(Sdk.SIGNATURE_REQUEST_HEADER),
-                        request.getHeader(Sdk.SIGNATURE_CERTIFICATE_CHAIN_URL_REQUEST_HEADER));
+            CompletableFuture<Void> responseFuture;
+            try (PooledByteArrayOutputStream serializedSpeechletRequest =
+                    PooledByteArrayOutputStream.acquire()) {
+                serializedSpeechletRequest.readFrom(request.getInputStream());
+
+                try {
+                    checkRequestSignature(request, serializedSpeechletRequest);
+                } catch (SecurityException ex) {
+                    sendError(response, ex);
+                    return;
+                }
+
+                // The request has been parsed once this returns, so its buffer can be released
+                responseFuture =
+                        speechletRequestHandler.handleSpeechletCallAsync(asyncSpeechlet,
+                                serializedSpeechletRequest.getBuffer(), 0,
+                                serializedSpeechletRequest.size(), serializedSpeechletResponse);
             }
 
-            outputBytes =
-                    speechletRequestHandler.handleSpeechletCall(speechlet,
-                            serializedSpeechletRequest);
-        } catch (SpeechletRequestHandlerException | SecurityException ex) {
-            int statusCode = HttpServletResponse.SC_BAD_REQUEST;
-            log.error("Exception occurred in doPost, returning status code {}", statusCode, ex);
-            response.sendError(statusCode, ex.getMessage());
-            return;
-        } catch (Exception ex) {
-            int statusCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
-            log.error("Exception occurred in doPost, returning status code {}", statusCode, ex);
-            response.sendError(statusCode, ex.getMessage());
-            return;
+            if (!request.isAsyncSupported()) {
+                try {
+                    responseFuture.join();
+                } catch (CompletionException ex) {
+                    sendError(response, ex);
+                    return;
+                }
+                writeResponse(response, serializedSpeechletResponse);
+                return;
+            }
+
+            // Either the speechlet or the container, on a timeout or an error, answers the request
+            // and completes it; the response must not be touched once the other side has
+            final AtomicBoolean answered = new AtomicBoolean();
+            final AsyncContext asyncContext = request.startAsync();
+            asyncContext.setTimeout(asyncTimeoutMillis);
+            asyncContext.addListener(new AsyncListener() {
+                @Override
+                public void onTimeout(AsyncEvent event) {
+                    if (answered.compareAndSet(false, true)) {
+                        log.error("Speechlet did not respond within {} ms, returning status code "
+                                + "{}", asyncTimeoutMillis,
+                                HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                        sendErrorAndComplete(asyncContext, response,
+                                HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    }
+                }
+
+                @Override
+                public void onError(AsyncEvent event) {
+                    if (answered.compareAndSet(false, true)) {
+                        log.error("Asynchronous request failed, returning status code {}",
+                                HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                                event.getThrowable());
+                        sendErrorAndComplete(asyncContext, response,
+                                HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    }
+                }
+
+                @Override
+                public void onComplete(AsyncEvent event) {
+                }
+
+                @Override
+                public void onStartAsync(AsyncEvent event) {
+                }
+            });
+
+            // The speechlet writes into the response buffer until its future completes, so only
+            // the completion may return the buffer to the pool
+            responseBufferHandedOff = true;
+            responseFuture.whenComplete(new BiConsumer<Void, Throwable>() {
+                @Override
+                public void accept(Void ignored, Throwable ex) {
+                    try {
+                        if (!answered.compareAndSet(false, true)) {
+                            log.warn("Dropping the response of a request that was already "
+                                    + "answered");
+                            return;
+                        }
+                        if (ex != null) {
+                            sendError(response, ex);
+                        } else {
+                            writeResponse(response, serializedSpeechletResponse);
+                        }
+                        asyncContext.complete();
+                    } catch (IOException e) {
+                        // The client went away in the meantime
+                        log.warn("Could not send the response", e);
+                        asyncContext.complete();
+                    } finally {
+                        serializedSpeechletResponse.close();
+                    }
+                }
+            });
+        } finally {
+            if (!responseBufferHandedOff) {
+                serializedSpeechletResponse.close();
+            }
+        }
+    }
+
+    private void checkRequestSignature(final HttpServletRequest request,
+            final PooledByteArrayOutputStream serializedSpeechletRequest) {
+        if (disableRequestSignatureCheck) {
+            log.warn("Warning: Speechlet request signature verification has been disabled!");
+        } else {
+            // Verify the authenticity of the request by checking the provided signature &
+            // certificate.
+            SpeechletRequestSignatureVerifier.checkRequestSignature(
+                    serializedSpeechletRequest.getBuffer(), 0, serializedSpeechletRequest.size(),
+                    request.getHeader(Sdk.SIGNATURE_REQUEST_HEADER),
+                    request.getHeader(Sdk.SIGNATURE_CERTIFICATE_CHAIN_URL_REQUEST_HEADER));
         }
+    }
 
-        // Generate JSON and send back the response
+    private static void sendError(final HttpServletResponse response, final Throwable ex)
+            throws IOException {
+        Throwable cause = SpeechletRequestDispatcher.unwrapException(ex);
+        int statusCode;
+        if (cause instanceof SpeechletRequestHandlerException
+                || cause instanceof SecurityException) {
+            statusCode = HttpServletResponse.SC_BAD_REQUEST;
+        } else if (cause instanceof RejectedExecutionException) {
+            // The speechlet's executor is saturated, the request may be retried
+            statusCode = HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+        } else {
+            statusCode = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        }
+        log.error("Exception occurred in doPost, returning status code {}", statusCode, cause);
+        response.sendError(statusCode, cause.getMessage());
+    }
+
+    private static void sendErrorAndComplete(final AsyncContext asyncContext,
+            final HttpServletResponse response, final int statusCode) {
+        try {
+            response.sendError(statusCode);
+        } catch (IOException | IllegalStateException e) {
+            log.warn("Could not send the error response", e);
+        } finally {
+            asyncContext.complete();
+        }
+    }
+
+    private static void writeResponse(final HttpServletResponse response,
+            final PooledByteArrayOutputStream serializedSpeechletResponse) throws IOException {
+        // Send back the JSON response
         response.setContentType("application/json");
         response.setStatus(HttpServletResponse.SC_OK);
         try (final OutputStream out = response.getOutputStream()) {
-            response.setContentLength(outputBytes.length);
-            out.write(outputBytes);
+            response.setContentLength(serializedSpeechletResponse.size());
+            serializedSpeechletResponse.writeTo(out);
         }
     }
 
@@ -122,6 +298,9 @@ public class SpeechletServlet extends HttpServlet {
         if (speechlet instanceof SpeechletToSpeechletV2Adapter) {
             return ((SpeechletToSpeechletV2Adapter) speechlet).getSpeechlet();
         }
+        if (asyncSpeechlet instanceof SpeechletV2ToAsyncSpeechletV2Adapter) {
+            return ((SpeechletV2ToAsyncSpeechletV2Adapter) asyncSpeechlet).getSpeechlet();
+        }
 
         return null;
     }
@@ -132,9 +311,23 @@ public class SpeechletServlet extends HttpServlet {
      * @return the {@code SpeechletV2} object that this servlet uses.
      */
     public SpeechletV2 getSpeechletV2() {
+        if (asyncSpeechlet instanceof SpeechletV2ToAsyncSpeechletV2Adapter) {
+            return ((SpeechletV2ToAsyncSpeechletV2Adapter) asyncSpeechlet).getSpeechletV2();
+        }
+
         return speechlet;
     }
 
+    /**
+     * Returns the {@code AsyncSpeechletV2} object that this servlet uses.
+     *
+     * @return the {@code AsyncSpeechletV2} associated with this servlet, or null if there is not
+     *         one
+     */
+    public AsyncSpeechletV2 getAsyncSpeechletV2() {
+        return asyncSpeechlet;
+    }
+
     /**
      * Sets the {@code Speechlet} object that this servlet uses.
      *
@@ -143,6 +336,7 @@ public class SpeechletServlet extends HttpServlet {
      */
     public void setSpeechlet(final Speechlet speechlet) {
         this.speechlet = new SpeechletToSpeechletV2Adapter(speechlet);
+        this.asyncSpeechlet = null;
     }
 
     /**
@@ -153,5 +347,59 @@ public class SpeechletServlet extends HttpServlet {
      */
     public void setSpeechlet(final SpeechletV2 speechlet) {
         this.speechlet = speechlet;
+        this.asyncSpeechlet = null;
+    }
+
+    /**
+     * Sets the {@code AsyncSpeechletV2} object that this servlet uses. Its requests are handled in
+     * asynchronous mode when the servlet is registered with asynchronous support.
+     * <p>
+     * Asynchronous mode only frees the container thread if the speechlet completes its futures on
+     * another thread. An {@code AsyncSpeechletV2} doing blocking work on the calling thread holds
+     * the container thread for the whole request, as a {@code SpeechletV2} would. For that reason
+     * a {@link SpeechletV2ToAsyncSpeechletV2Adapter} must be constructed with an executor.
+     *
+     * @param speechlet
+     *            the {@code AsyncSpeechletV2} to associate with this servlet
+     * @throws IllegalArgumentException
+     *             if the speechlet is a {@code SpeechletV2ToAsyncSpeechletV2Adapter} without an
+     *             executor
+     */
+    public void setSpeechlet(final AsyncSpeechletV2 speechlet) {
+        if (speechlet instanceof SpeechletV2ToAsyncSpeechletV2Adapter
+                && ((SpeechletV2ToAsyncSpeechletV2Adapter) speechlet).getExecutor() == null) {
+            throw new IllegalArgumentException(
+                    "An adapted speechlet without an executor is not supported, "
+                            + "use setSpeechlet(SpeechletV2) or provide an executor");
+        }
+        this.asyncSpeechlet = speechlet;
+        this.speechlet = null;
+    }
+
+    /**
+     * Sets how long an asynchronous request may take. When the speechlet has not completed the
+     * response by then, the request is answered with a 503 and the late response is dropped.
+     * Defaults to {@value #DEFAULT_ASYNC_TIMEOUT_MILLIS} milliseconds.
+     *
+     * @param asyncTimeoutMillis
+     *            the timeout in milliseconds, positive
+     */
+    public void setAsyncTimeoutMillis(final long asyncTimeoutMillis) {
+        if (asyncTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("A non-positive timeout is not supported");
+        }
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+    }
+
+    /**
+     * Sets the {@code SessionStore} that this servlet keeps session attributes in, instead of
+     * sending them back and forth in the request and response envelopes.
+     *
+     * @param sessionStore
+     *            the {@code SessionStore} to use, or {@code null} to keep session attributes in
+     *            the envelopes
+     */
+    public void setSessionStore(final SessionStore sessionStore) {
+        speechletRequestHandler.setSessionStore(sessionStore);
     }
 }
@@ -0,0 +1,403 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.store;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A {@link SessionStore} keeping the attributes in a DynamoDB table, so that every host serving the
+ * skill sees the same sessions. It needs the {@code aws-java-sdk-dynamodb} artifact, which the SDK
+ * only declares as an optional dependency.
+ * <p>
+ * The table needs a string hash key named {@value #KEY_ATTRIBUTE}. Each item holds the session
+ * attributes as a JSON document in {@value #ATTRIBUTES_ATTRIBUTE} and the time, in epoch seconds,
+ * after which they are no longer used in {@value #EXPIRES_AT_ATTRIBUTE}. Enable DynamoDB's time to
+ * live on that attribute to have abandoned sessions deleted; sessions that end normally are
+ * deleted on their {@code SessionEndedRequest}.
+ * <p>
+ * By default, every save and remove is written through before it returns. With a flush interval,
+ * writes are instead buffered and sent behind the request in batches of up to
+ * {@value #MAX_BATCH_SIZE} items, either every flush interval or as soon as a full batch is
+ * pending. Only the latest write of each session is sent, and at most
+ * {@value #MAX_PENDING_WRITES} writes are buffered: beyond that, the oldest is dropped. Reads on
+ * this host see buffered writes immediately; other hosts see them once flushed, so the flush
+ * interval should be well below the time a user takes to reply. On AWS Lambda, which freezes the
+ * container between invocations, the store always writes through.
+ * <p>
+ * A write DynamoDB does not accept after {@value #MAX_BATCH_ATTEMPTS} attempts is dropped and
+ * logged. Attributes that can't be serialized are deleted from the table rather than left at an
+ * older version.
+ * <p>
+ * The endpoint of the provided client may point at DynamoDB Local or any other stand-in.
+ */
+public class DynamoDBSessionStore implements SessionStore {
+    private static final Logger log = LoggerFactory.getLogger(DynamoDBSessionStore.class);
+
+    /**
+     * Name of the hash key holding the session Id.
+     */
+    public static final String KEY_ATTRIBUTE = "sessionId";
+
+    /**
+     * Name of the attribute holding the session attributes as JSON.
+     */
+    public static final String ATTRIBUTES_ATTRIBUTE = "attributes";
+
+    /**
+     * Name of the attribute holding the expiry time in epoch seconds.
+     */
+    public static final String EXPIRES_AT_ATTRIBUTE = "expiresAt";
+
+    /**
+     * Maximum number of items DynamoDB accepts in a single {@code BatchWriteItem} call.
+     */
+    public static final int MAX_BATCH_SIZE = 25;
+
+    /**
+     * Maximum number of buffered writes, beyond which the oldest is dropped.
+     */
+    public static final int MAX_PENDING_WRITES = 10000;
+
+    /**
+     * Number of times a batch, or its unprocessed items, is sent before the writes are dropped.
+     */
+    public static final int MAX_BATCH_ATTEMPTS = 3;
+
+    /**
+     * Environment variable set by AWS Lambda in the containers it runs functions in.
+     */
+    private static final String LAMBDA_FUNCTION_NAME_VARIABLE = "AWS_LAMBDA_FUNCTION_NAME";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> ATTRIBUTES_TYPE =
+            new TypeReference<Map<String, Object>>() {
+            };
+
+    /**
+     * Marks a pending removal in the write buffer.
+     */
+    private static final Map<String, Object> REMOVED = Collections.emptyMap();
+
+    private final AmazonDynamoDB dynamoDB;
+    private final String tableName;
+    private final long ttlInMilliseconds;
+    private final ScheduledExecutorService flushExecutor;
+
+    /**
+     * Buffered writes in the order they were last written, guarded by itself.
+     */
+    private final Map<String, Map<String, Object>> pendingWrites =
+            new LinkedHashMap<String, Map<String, Object>>();
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            // Clear first, so that writes buffered during the flush may queue the next one
+            flushQueued.set(false);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.warn("Failed to flush session attributes to {}", tableName, e);
+            }
+        }
+    };
+
+    /**
+     * Constructs a new store writing through on every call.
+     *
+     * @param dynamoDB
+     *            the DynamoDB client
+     * @param tableName
+     *            the name of the table
+     * @param ttl
+     *            how long the attributes of a session are kept after they were last saved
+     * @param unit
+     *            the time unit of the {@code ttl} parameter
+     */
+    public DynamoDBSessionStore(final AmazonDynamoDB dynamoDB, final String tableName,
+            final long ttl, final TimeUnit unit) {
+        this(dynamoDB, tableName, ttl, 0, unit);
+    }
+
+    /**
+     * Constructs a new store buffering its writes for up to the provided flush interval. On AWS
+     * Lambda, the flush interval is ignored and the store writes through.
+     *
+     * @param dynamoDB
+     *            the DynamoDB client
+     * @param tableName
+     *            the name of the table
+     * @param ttl
+     *            how long the attributes of a session are kept after they were last saved
+     * @param flushInterval
+     *            how long writes may be buffered, zero to write through
+     * @param unit
+     *            the time unit of the {@code ttl} and {@code flushInterval} parameters
+     */
+    public DynamoDBSessionStore(final AmazonDynamoDB dynamoDB, final String tableName,
+            final long ttl, final long flushInterval, final TimeUnit unit) {
+        if (dynamoDB == null) {
+            throw new IllegalArgumentException("A null DynamoDB client is not supported");
+        }
+        if (tableName == null) {
+            throw new IllegalArgumentException("A null table name is not supported");
+        }
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("A non-positive time to live is not supported");
+        }
+        if (flushInterval < 0) {
+            throw new IllegalArgumentException("A negative flush interval is not supported");
+        }
+
+        this.dynamoDB = dynamoDB;
+        this.tableName = tableName;
+        this.ttlInMilliseconds = unit.toMillis(ttl);
+
+        if (flushInterval > 0 && System.getenv(LAMBDA_FUNCTION_NAME_VARIABLE) != null) {
+            log.info("Writing session attributes to {} through, as buffered writes would be "
+                    + "frozen with the Lambda container", tableName);
+            flushExecutor = null;
+        } else if (flushInterval > 0) {
+            flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "DynamoDBSessionStore-flush");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            flushExecutor.scheduleWithFixedDelay(flushTask, flushInterval, flushInterval, unit);
+        } else {
+            flushExecutor = null;
+        }
+    }
+
+    /**
+     * Returns whether every save and remove is written to DynamoDB before it returns.
+     *
+     * @return whether this store writes through
+     */
+    public boolean isWriteThrough() {
+        return flushExecutor == null;
+    }
+
+    @Override
+    public Map<String, Object> load(final String sessionId) {
+        Map<String, Object> pending;
+        synchronized (pendingWrites) {
+            pending = pendingWrites.get(sessionId);
+        }
+        if (pending != null) {
+            return pending == REMOVED ? null : new HashMap<String, Object>(pending);
+        }
+
+        Map<String, AttributeValue> item;
+        try {
+            item = dynamoDB.getItem(new GetItemRequest()
+                    .withTableName(tableName)
+                    .withKey(key(sessionId))
+                    .withConsistentRead(true)).getItem();
+        } catch (AmazonClientException e) {
+            log.warn("Failed to load session attributes of {} from {}", sessionId, tableName, e);
+            return null;
+        }
+
+        if (item == null || !item.containsKey(ATTRIBUTES_ATTRIBUTE)) {
+            return null;
+        }
+
+        AttributeValue expiresAt = item.get(EXPIRES_AT_ATTRIBUTE);
+        if (expiresAt != null
+                && Long.parseLong(expiresAt.getN()) <= TimeUnit.MILLISECONDS.toSeconds(System
+                        .currentTimeMillis())) {
+            return null;
+        }
+
+        try {
+            return OBJECT_MAPPER.readValue(item.get(ATTRIBUTES_ATTRIBUTE).getS(), ATTRIBUTES_TYPE);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable session attributes of {} in {}", sessionId, tableName, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void save(final String sessionId, final Map<String, Object> attributes) {
+        write(sessionId, new HashMap<String, Object>(attributes));
+    }
+
+    @Override
+    public void remove(final String sessionId) {
+        write(sessionId, REMOVED);
+    }
+
+    /**
+     * Sends the writes buffered so far to DynamoDB. A write stays in the buffer, and visible to
+     * {@link #load(String)}, until it has been sent.
+     */
+    public void flush() {
+        List<String> sessionIds;
+        synchronized (pendingWrites) {
+            sessionIds = new ArrayList<String>(pendingWrites.keySet());
+        }
+
+        for (int from = 0; from < sessionIds.size(); from += MAX_BATCH_SIZE) {
+            Map<String, Map<String, Object>> batch = new HashMap<String, Map<String, Object>>();
+            synchronized (pendingWrites) {
+                for (String sessionId : sessionIds.subList(from,
+                        Math.min(from + MAX_BATCH_SIZE, sessionIds.size()))) {
+                    Map<String, Object> attributes = pendingWrites.get(sessionId);
+                    if (attributes != null) {
+                        batch.put(sessionId, attributes);
+                    }
+                }
+            }
+            writeBatch(batch);
+        }
+    }
+
+    /**
+     * Flushes the buffered writes and stops the background flushes.
+     */
+    public void close() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+        }
+        flush();
+    }
+
+    private void write(final String sessionId, final Map<String, Object> attributes) {
+        if (flushExecutor == null) {
+            writeBatch(Collections.singletonMap(sessionId, attributes));
+            return;
+        }
+
+        String droppedSessionId = null;
+        int pending;
+        synchronized (pendingWrites) {
+            // Re-insert, so that the eldest entry is always the oldest write
+            pendingWrites.remove(sessionId);
+            pendingWrites.put(sessionId, attributes);
+            if (pendingWrites.size() > MAX_PENDING_WRITES) {
+                Iterator<String> eldest = pendingWrites.keySet().iterator();
+                droppedSessionId = eldest.next();
+                eldest.remove();
+            }
+            pending = pendingWrites.size();
+        }
+
+        if (droppedSessionId != null) {
+            log.warn("Dropping the buffered session attributes of {}, {} writes are pending",
+                    droppedSessionId, MAX_PENDING_WRITES);
+        }
+        if (pending >= MAX_BATCH_SIZE && flushQueued.compareAndSet(false, true)) {
+            flushExecutor.execute(flushTask);
+        }
+    }
+
+    private void writeBatch(final Map<String, Map<String, Object>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long expiresAt =
+                TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() + ttlInMilliseconds);
+        List<WriteRequest> unwritten = new ArrayList<WriteRequest>(batch.size());
+        for (Map.Entry<String, Map<String, Object>> entry : batch.entrySet()) {
+            unwritten.add(writeRequest(entry.getKey(), entry.getValue(), expiresAt));
+        }
+
+        for (int attempt = 1; attempt <= MAX_BATCH_ATTEMPTS && !unwritten.isEmpty(); attempt++) {
+            try {
+                BatchWriteItemResult result =
+                        dynamoDB.batchWriteItem(new BatchWriteItemRequest()
+                                .withRequestItems(Collections.singletonMap(tableName, unwritten)));
+                List<WriteRequest> unprocessed =
+                        result.getUnprocessedItems() != null ? result.getUnprocessedItems().get(
+                                tableName) : null;
+                unwritten =
+                        unprocessed != null ? unprocessed : Collections.<WriteRequest>emptyList();
+            } catch (AmazonClientException e) {
+                log.warn("Failed to write session attributes to {}, attempt {} of {}", tableName,
+                        attempt, MAX_BATCH_ATTEMPTS, e);
+            }
+        }
+
+        if (!unwritten.isEmpty()) {
+            log.warn("Dropping {} session attribute writes to {} after {} attempts",
+                    unwritten.size(), tableName, MAX_BATCH_ATTEMPTS);
+        }
+
+        // Unbuffer the batch, unless a newer write has been buffered in the meantime
+        synchronized (pendingWrites) {
+            for (Map.Entry<String, Map<String, Object>> entry : batch.entrySet()) {
+                if (pendingWrites.get(entry.getKey()) == entry.getValue()) {
+                    pendingWrites.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    private static WriteRequest writeRequest(final String sessionId,
+            final Map<String, Object> attributes, final long expiresAt) {
+        if (attributes != REMOVED) {
+            try {
+                Map<String, AttributeValue> item = key(sessionId);
+                item.put(ATTRIBUTES_ATTRIBUTE,
+                        new AttributeValue().withS(OBJECT_MAPPER.writeValueAsString(attributes)));
+                item.put(EXPIRES_AT_ATTRIBUTE,
+                        new AttributeValue().withN(Long.toString(expiresAt)));
+                return new WriteRequest().withPutRequest(new PutRequest().withItem(item));
+            } catch (IOException e) {
+                // Delete the stored attributes, rather than have an older version loaded
+                log.warn("Deleting unserializable session attributes of {}", sessionId, e);
+            }
+        }
+        return new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key(sessionId)));
+    }
+
+    private static Map<String, AttributeValue> key(final String sessionId) {
+        Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+        key.put(KEY_ATTRIBUTE, new AttributeValue().withS(sessionId));
+        return key;
+    }
+}
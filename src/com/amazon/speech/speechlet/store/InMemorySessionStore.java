@@ -0,0 +1,122 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.store;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link SessionStore} keeping the attributes in memory, in least recently used order.
+ * <p>
+ * Sessions normally end with a {@code SessionEndedRequest}, which removes their attributes. As that
+ * request is not guaranteed to be delivered, stored attributes also expire once they have not been
+ * saved for the configured time to live, and the least recently used session is dropped once the
+ * store is full.
+ * <p>
+ * Attributes only live in the memory of the current process, so this store is only suitable when
+ * every request of a session is handled by the same host.
+ */
+public class InMemorySessionStore implements SessionStore {
+    private final int maximumSize;
+    private final long ttlInMilliseconds;
+    private final Map<String, Entry> entries;
+
+    /**
+     * Constructs a new in-memory store.
+     *
+     * @param maximumSize
+     *            the maximum number of sessions to keep
+     * @param ttl
+     *            how long the attributes of a session are kept after they were last saved
+     * @param unit
+     *            the time unit of the {@code ttl} parameter
+     */
+    public InMemorySessionStore(final int maximumSize, final long ttl, final TimeUnit unit) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("A non-positive maximum size is not supported");
+        }
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("A non-positive time to live is not supported");
+        }
+
+        this.maximumSize = maximumSize;
+        this.ttlInMilliseconds = unit.toMillis(ttl);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > InMemorySessionStore.this.maximumSize;
+            }
+        };
+    }
+
+    @Override
+    public Map<String, Object> load(final String sessionId) {
+        synchronized (entries) {
+            Entry entry = entries.get(sessionId);
+            if (entry == null) {
+                return null;
+            }
+
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(sessionId);
+                return null;
+            }
+
+            return new HashMap<String, Object>(entry.attributes);
+        }
+    }
+
+    @Override
+    public void save(final String sessionId, final Map<String, Object> attributes) {
+        Entry entry =
+                new Entry(new HashMap<String, Object>(attributes), System.currentTimeMillis()
+                        + ttlInMilliseconds);
+        synchronized (entries) {
+            entries.put(sessionId, entry);
+        }
+    }
+
+    @Override
+    public void remove(final String sessionId) {
+        synchronized (entries) {
+            entries.remove(sessionId);
+        }
+    }
+
+    /**
+     * Returns the number of sessions currently stored, including any that have expired but have
+     * not been evicted yet.
+     *
+     * @return the number of sessions
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static final class Entry {
+        private final Map<String, Object> attributes;
+        private final long expiresAt;
+
+        private Entry(final Map<String, Object> attributes, final long expiresAt) {
+            this.attributes = attributes;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
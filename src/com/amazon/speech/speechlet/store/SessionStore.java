@@ -0,0 +1,64 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.store;
+
+import java.util.Map;
+
+/**
+ * Server-side storage for session attributes, keyed by session Id.
+ * <p>
+ * When a {@code SessionStore} is configured, the {@code SpeechletRequestDispatcher} saves the
+ * session attributes to the store after each invocation and returns only a small handle,
+ * {@value #HANDLE_ATTRIBUTE}, in the response envelope. When the handle comes back in the next
+ * request of the session, the attributes are loaded from the store and restored into the
+ * {@code Session} before the {@code SpeechletV2} is invoked. The stored attributes are removed
+ * when the session ends.
+ * <p>
+ * Implementations must be thread-safe.
+ *
+ * @see InMemorySessionStore
+ */
+public interface SessionStore {
+    /**
+     * The name of the session attribute that replaces the stored attributes in the envelope.
+     */
+    String HANDLE_ATTRIBUTE = "sessionStoreHandle";
+
+    /**
+     * Returns the attributes stored for the provided session.
+     *
+     * @param sessionId
+     *            the session Id
+     * @return the stored attributes, or {@code null} if there are none or they have expired
+     */
+    Map<String, Object> load(String sessionId);
+
+    /**
+     * Stores the attributes of the provided session, replacing any previously stored.
+     *
+     * @param sessionId
+     *            the session Id
+     * @param attributes
+     *            the attributes to store
+     */
+    void save(String sessionId, Map<String, Object> attributes);
+
+    /**
+     * Removes the attributes stored for the provided session, if any.
+     *
+     * @param sessionId
+     *            the session Id
+     */
+    void remove(String sessionId);
+}
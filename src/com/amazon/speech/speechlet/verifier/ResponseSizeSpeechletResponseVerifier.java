@@ -25,12 +25,13 @@ import com.amazon.speech.speechlet.Session;
  * A {@link SpeechletResponseVerifier} to verify the size of the complete response returned in
  * {@link SpeechletResponseEnvelope}. In the current implementation, the
  * {@link #verify(SpeechletResponseEnvelope, Session)} method logs a warning if the response size in
- * bytes exceeds {@value #MAX_RESPONSE_SIZE}.
+ * bytes exceeds {@value #MAX_RESPONSE_SIZE}. When used by the {@code SpeechletRequestHandler}, the
+ * size of the already serialized response is checked and the response is not serialized again.
  * <p>
  * Note: This verifier currently does not not enforce response checks and always returns true. The
  * primary purpose of this verifier is to log a warning in the app developer's runtime.
  */
-public class ResponseSizeSpeechletResponseVerifier implements SpeechletResponseVerifier {
+public class ResponseSizeSpeechletResponseVerifier implements SerializedSpeechletResponseVerifier {
     private static final Logger log = LoggerFactory
             .getLogger(ResponseSizeSpeechletResponseVerifier.class);
 
@@ -50,7 +51,17 @@ public class ResponseSizeSpeechletResponseVerifier implements SpeechletResponseV
             return false;
         }
 
-        int responseSize = jsonBytes.length;
+        return verify(jsonBytes, 0, jsonBytes.length, responseEnvelope, session);
+    }
+
+    @Override
+    public boolean verify(byte[] serializedResponseEnvelope, int offset, int length,
+            SpeechletResponseEnvelope responseEnvelope, Session session) {
+        if (serializedResponseEnvelope == null) {
+            return false;
+        }
+
+        int responseSize = length;
         if (responseSize > MAX_RESPONSE_SIZE) {
             log.warn("Speechlet response with size of {} bytes exceeds the maximum allowed "
                     + "size of {} bytes and will be rejected by the Alexa service", responseSize,
@@ -0,0 +1,290 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.amazon.speech.speechlet.Context;
+import com.amazon.speech.speechlet.IntentRequest;
+import com.amazon.speech.speechlet.SupportedInterfaces;
+import com.amazon.speech.speechlet.interfaces.audioplayer.AudioPlayerInterface;
+import com.amazon.speech.speechlet.interfaces.audioplayer.AudioPlayerState;
+import com.amazon.speech.speechlet.interfaces.audioplayer.PlayerActivity;
+import com.amazon.speech.speechlet.interfaces.system.SystemInterface;
+import com.amazon.speech.speechlet.interfaces.system.SystemState;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Tests that {@link ContextDeserializer} and {@link SupportedInterfacesDeserializer}, which stream,
+ * read the same {@link Context} and {@link SupportedInterfaces} as reading a tree and converting
+ * each interface, as they used to.
+ */
+public class ContextDeserializerTest {
+    private static final String AUDIO_PLAYER =
+            "{\"token\":\"track1\",\"offsetInMilliseconds\":1500,\"playerActivity\":\"PLAYING\"}";
+
+    private static final String SYSTEM = system("{\"AudioPlayer\":{}}");
+
+    private static final String[] CONTEXTS = {
+        "{}",
+        "{\"AudioPlayer\":" + AUDIO_PLAYER + "}",
+        "{\"System\":" + SYSTEM + "}",
+        "{\"AudioPlayer\":" + AUDIO_PLAYER + ",\"System\":" + SYSTEM + "}",
+        "{\"System\":" + SYSTEM + ",\"AudioPlayer\":" + AUDIO_PLAYER + "}",
+        "{\"AudioPlayer\":{}}",
+        "{\"AudioPlayer\":{\"token\":null,\"playerActivity\":\"SOME_NEW_ACTIVITY\"}}",
+        "{\"AudioPlayer\":{\"token\":\"track1\",\"newField\":{\"nested\":[1,{\"a\":null}]}}}",
+        "{\"Display\":{\"template\":[1,{\"a\":[]}],\"b\":null},\"AudioPlayer\":" + AUDIO_PLAYER
+                + ",\"VideoApp\":[1,2],\"Geolocation\":\"text\"}",
+        "{\"System\":" + system("{}") + "}",
+        "{\"System\":" + system("{\"Display\":{\"version\":\"1\"},\"AudioPlayer\":{}}") + "}",
+        "{\"System\":" + system("{\"AudioPlayer\":{\"newField\":[true]}}") + "}",
+        "{\"System\":{\"application\":{\"applicationId\":\"application1\"},"
+                + "\"device\":{\"supportedInterfaces\":null}}}",
+        "{\"System\":{\"device\":{}}}",
+        "{\"System\":{}}"
+    };
+
+    /**
+     * Contexts holding null interfaces, which the tree conversion did not support, each with the
+     * context the streaming deserializers read it as, skipping the nulls like unknown interfaces.
+     */
+    private static final String[][] CONTEXTS_WITH_NULLS = {
+        {"{\"AudioPlayer\":null}", "{}"},
+        {"{\"AudioPlayer\":null,\"System\":" + SYSTEM + "}", "{\"System\":" + SYSTEM + "}"},
+        {"{\"System\":" + system("{\"AudioPlayer\":null}") + "}",
+            "{\"System\":" + system("{}") + "}"},
+        {"{\"System\":" + system("{\"AudioPlayer\":null,\"Display\":null}") + "}",
+            "{\"System\":" + system("{}") + "}"},
+        {"{\"System\":" + system("{\"Display\":null,\"AudioPlayer\":{}}") + "}",
+            "{\"System\":" + SYSTEM + "}"}
+    };
+
+    private static final ObjectMapper STREAMING_MAPPER = mapper();
+    private static final ObjectMapper TREE_MAPPER = treeMapper();
+
+    @Test
+    public void streamingAndTreeReadTheSameContexts() throws Exception {
+        for (String json : CONTEXTS) {
+            Context streamed = STREAMING_MAPPER.readValue(json, Context.class);
+            Context converted = TREE_MAPPER.readValue(json, Context.class);
+
+            assertEquals(json, describe(converted), describe(streamed));
+        }
+    }
+
+    @Test
+    public void nullInterfacesAreSkipped() throws Exception {
+        for (String[] jsonAndExpected : CONTEXTS_WITH_NULLS) {
+            Context streamed = STREAMING_MAPPER.readValue(jsonAndExpected[0], Context.class);
+            Context converted = TREE_MAPPER.readValue(jsonAndExpected[1], Context.class);
+
+            assertEquals(jsonAndExpected[0], describe(converted), describe(streamed));
+        }
+
+        Context context = STREAMING_MAPPER.readValue(CONTEXTS_WITH_NULLS[1][0], Context.class);
+        assertFalse(context.hasState(AudioPlayerInterface.class));
+        assertTrue(context.hasState(SystemInterface.class));
+    }
+
+    @Test
+    public void audioPlayerStateIsRead() throws Exception {
+        Context context = STREAMING_MAPPER.readValue(CONTEXTS[3], Context.class);
+
+        AudioPlayerState state = context.getState(AudioPlayerInterface.class,
+                AudioPlayerState.class);
+        assertEquals("track1", state.getToken());
+        assertEquals(Long.valueOf(1500), state.getOffsetInMilliseconds());
+        assertEquals(PlayerActivity.PLAYING, state.getPlayerActivity());
+    }
+
+    @Test
+    public void systemStateIsRead() throws Exception {
+        Context context = STREAMING_MAPPER.readValue(CONTEXTS[3], Context.class);
+
+        SystemState state = context.getState(SystemInterface.class, SystemState.class);
+        assertEquals("application1", state.getApplication().getApplicationId());
+        assertEquals("user1", state.getUser().getUserId());
+        assertEquals("token1", state.getUser().getAccessToken());
+        assertTrue(state
+                .getDevice()
+                .getSupportedInterfaces()
+                .isInterfaceSupported(AudioPlayerInterface.class));
+    }
+
+    @Test
+    public void unknownInterfacesAreSkipped() throws Exception {
+        Context context = STREAMING_MAPPER.readValue(CONTEXTS[8], Context.class);
+
+        assertTrue(context.hasState(AudioPlayerInterface.class));
+        assertFalse(context.hasState(SystemInterface.class));
+
+        SystemState state = STREAMING_MAPPER.readValue(CONTEXTS[10], Context.class).getState(
+                SystemInterface.class, SystemState.class);
+        assertTrue(state
+                .getDevice()
+                .getSupportedInterfaces()
+                .isInterfaceSupported(AudioPlayerInterface.class));
+    }
+
+    @Test
+    public void restOfTheEnvelopeIsReadAfterTheContext() throws Exception {
+        String json =
+                "{\"version\":\"1.0\",\"context\":" + CONTEXTS[8] + ",\"request\":{"
+                        + "\"type\":\"IntentRequest\",\"requestId\":\"request1\","
+                        + "\"intent\":{\"name\":\"Intent1\"}}}";
+
+        SpeechletRequestEnvelope<?> envelope = SpeechletRequestEnvelope.fromJson(json);
+
+        assertEquals("1.0", envelope.getVersion());
+        assertEquals("request1", envelope.getRequest().getRequestId());
+        assertEquals("Intent1", ((IntentRequest) envelope.getRequest()).getIntent().getName());
+        assertTrue(envelope.getContext().hasState(AudioPlayerInterface.class));
+        assertNull(envelope.getSession());
+    }
+
+    private static String system(final String supportedInterfaces) {
+        return "{\"application\":{\"applicationId\":\"application1\"},"
+                + "\"user\":{\"userId\":\"user1\",\"accessToken\":\"token1\"},"
+                + "\"device\":{\"supportedInterfaces\":" + supportedInterfaces + "}}";
+    }
+
+    /**
+     * Describes every value read into the provided context.
+     */
+    static String describe(final Context context) {
+        StringBuilder description = new StringBuilder();
+        if (context.hasState(AudioPlayerInterface.class)) {
+            AudioPlayerState state =
+                    context.getState(AudioPlayerInterface.class, AudioPlayerState.class);
+            description.append("AudioPlayer(").append(state.getToken()).append(", ")
+                    .append(state.getOffsetInMilliseconds()).append(", ")
+                    .append(state.getPlayerActivity()).append(") ");
+        }
+        if (context.hasState(SystemInterface.class)) {
+            SystemState state = context.getState(SystemInterface.class, SystemState.class);
+            description.append("System(");
+            if (state.getApplication() != null) {
+                description.append(state.getApplication().getApplicationId());
+            }
+            description.append(", ");
+            if (state.getUser() != null) {
+                description.append(state.getUser().getUserId()).append(", ")
+                        .append(state.getUser().getAccessToken());
+            }
+            description.append(", ");
+            if (state.getDevice() != null) {
+                SupportedInterfaces supportedInterfaces =
+                        state.getDevice().getSupportedInterfaces();
+                description.append(supportedInterfaces == null ? "none" : supportedInterfaces
+                        .isInterfaceSupported(AudioPlayerInterface.class));
+            }
+            description.append(")");
+        }
+        return description.toString();
+    }
+
+    /**
+     * Configured like the mapper of {@link SpeechletRequestEnvelope}.
+     */
+    static ObjectMapper mapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        mapper.configure(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_AS_NULL, true);
+        mapper.registerModule(new SpeechletRequestModule());
+        return mapper;
+    }
+
+    /**
+     * Configured like the mapper of {@link SpeechletRequestEnvelope}, but reading contexts and
+     * supported interfaces as trees, as the SDK used to.
+     */
+    static ObjectMapper treeMapper() {
+        SimpleModule treeModule = new SimpleModule();
+        treeModule.addDeserializer(Context.class, new TreeContextDeserializer());
+        treeModule.addDeserializer(SupportedInterfaces.class,
+                new TreeSupportedInterfacesDeserializer());
+        return mapper().registerModule(treeModule);
+    }
+
+    /**
+     * Reads the context as a tree and converts each known interface, as the SDK used to.
+     */
+    private static class TreeContextDeserializer extends StdDeserializer<Context> {
+        private static final long serialVersionUID = 1L;
+
+        TreeContextDeserializer() {
+            super(Context.class);
+        }
+
+        @Override
+        public Context deserialize(JsonParser parser, DeserializationContext context)
+                throws IOException {
+            ObjectMapper underlyingMapper = ((ObjectMapper) parser.getCodec());
+            JsonNode messageNode = parser.readValueAsTree();
+            Context.Builder contextBuilder = Context.builder();
+
+            for (SerializedInterface interfaceName : SerializedInterface.values()) {
+                if (messageNode.has(interfaceName.name())) {
+                    contextBuilder.addState(underlyingMapper.convertValue(
+                            messageNode.get(interfaceName.name()),
+                            interfaceName.getStateClass()));
+                }
+            }
+            return contextBuilder.build();
+        }
+    }
+
+    /**
+     * Reads the supported interfaces as a tree and converts each known one, as the SDK used to.
+     */
+    private static class TreeSupportedInterfacesDeserializer extends
+            StdDeserializer<SupportedInterfaces> {
+        private static final long serialVersionUID = 1L;
+
+        TreeSupportedInterfacesDeserializer() {
+            super(SupportedInterfaces.class);
+        }
+
+        @Override
+        public SupportedInterfaces deserialize(JsonParser parser, DeserializationContext context)
+                throws IOException {
+            ObjectMapper underlyingMapper = ((ObjectMapper) parser.getCodec());
+            JsonNode messageNode = parser.readValueAsTree();
+            SupportedInterfaces.Builder supportedInterfacesBuilder = SupportedInterfaces.builder();
+
+            for (SerializedInterface interfaceName : SerializedInterface.values()) {
+                if (messageNode.has(interfaceName.name())) {
+                    supportedInterfacesBuilder.addSupportedInterface(underlyingMapper
+                            .convertValue(messageNode.get(interfaceName.name()),
+                                    interfaceName.getInterfaceClass()));
+                }
+            }
+            return supportedInterfacesBuilder.build();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.json;
+
+import static com.amazon.speech.json.ContextDeserializerTest.describe;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.amazon.speech.speechlet.IntentRequest;
+
+/**
+ * Tests that an envelope read with its context parsed lazily, see
+ * {@link com.amazon.speech.Sdk#LAZY_CONTEXT_PARSING_SYSTEM_PROPERTY}, holds the same values as one
+ * read eagerly, and where each kind of malformed context fails.
+ */
+public class SpeechletRequestEnvelopeLazyContextTest {
+    private static final String SESSION = "\"session\":{\"new\":true,\"sessionId\":\"session1\","
+            + "\"application\":{\"applicationId\":\"application1\"},"
+            + "\"user\":{\"userId\":\"user1\"}}";
+
+    private static final String REQUEST = "\"request\":{\"type\":\"IntentRequest\","
+            + "\"requestId\":\"request1\",\"timestamp\":\"2016-01-01T00:00:00Z\","
+            + "\"intent\":{\"name\":\"GetAsteroidsIntent\",\"slots\":{}}}";
+
+    private static final String CONTEXT = "\"context\":{\"AudioPlayer\":{\"token\":\"track1\","
+            + "\"offsetInMilliseconds\":1500,\"playerActivity\":\"PLAYING\"},"
+            + "\"System\":{\"application\":{\"applicationId\":\"application1\"},"
+            + "\"user\":{\"userId\":\"user1\"},"
+            + "\"device\":{\"supportedInterfaces\":{\"AudioPlayer\":{}}}}}";
+
+    @Test
+    public void envelopeIsReadAsWhenTheContextIsParsedEagerly() throws Exception {
+        String[] envelopes = {
+            envelope(SESSION, CONTEXT, REQUEST),
+            envelope(CONTEXT, REQUEST, SESSION),
+            envelope(REQUEST, SESSION, CONTEXT),
+            envelope(SESSION, "\"context\":{}", REQUEST),
+            envelope(SESSION, "\"context\":{\"Display\":{\"nested\":{\"a\":[{}]}}}", REQUEST)
+        };
+
+        for (String json : envelopes) {
+            SpeechletRequestEnvelope<?> eager = SpeechletRequestEnvelope.fromJson(json);
+            SpeechletRequestEnvelope<?> lazy = readLazily(json);
+
+            assertEquals(json, eager.getVersion(), lazy.getVersion());
+            assertEquals(json, eager.getSession().getSessionId(), lazy.getSession().getSessionId());
+            assertEquals(json, eager.getRequest().getRequestId(), lazy.getRequest().getRequestId());
+            assertEquals(json, IntentRequest.class, lazy.getRequest().getClass());
+            assertEquals(json, describe(eager.getContext()), describe(lazy.getContext()));
+        }
+    }
+
+    @Test
+    public void contextIsParsedOnceAndThenShared() throws Exception {
+        SpeechletRequestEnvelope<?> envelope = readLazily(envelope(SESSION, CONTEXT, REQUEST));
+
+        assertSame(envelope.getContext(), envelope.getContext());
+    }
+
+    @Test
+    public void envelopeWithoutAContextHasNone() throws Exception {
+        assertNull(readLazily(envelope(SESSION, REQUEST)).getContext());
+        assertNull(readLazily(envelope(SESSION, "\"context\":null", REQUEST)).getContext());
+    }
+
+    @Test
+    public void contextIsReadFromARegionAndCopied() throws Exception {
+        byte[] envelope = envelope(SESSION, CONTEXT, REQUEST).getBytes(StandardCharsets.UTF_8);
+        byte[] buffer = new byte[envelope.length + 20];
+        Arrays.fill(buffer, (byte) '#');
+        System.arraycopy(envelope, 0, buffer, 10, envelope.length);
+
+        SpeechletRequestEnvelope<?> lazy =
+                SpeechletRequestEnvelope.fromJsonWithLazyContext(buffer, 10, envelope.length);
+        // The buffer is typically reused for the next request before the context is accessed
+        Arrays.fill(buffer, (byte) '#');
+
+        assertEquals(describe(SpeechletRequestEnvelope.fromJson(envelope).getContext()),
+                describe(lazy.getContext()));
+    }
+
+    @Test
+    public void contextThatIsNotWellFormedFailsWhenTheEnvelopeIsRead() throws Exception {
+        String[] contexts = {
+            "\"context\":{\"AudioPlayer\":{\"token\":}}",
+            "\"context\":{\"AudioPlayer\":{\"token\":\"track1\"]}",
+            "\"context\":{\"AudioPlayer\" {}}"
+        };
+
+        for (String context : contexts) {
+            String json = envelope(SESSION, context, REQUEST);
+            assertReadFails(json, false);
+            assertReadFails(json, true);
+        }
+    }
+
+    @Test
+    public void contextThatCannotBeBoundFailsOnFirstAccess() throws Exception {
+        String json = envelope(SESSION,
+                "\"context\":{\"AudioPlayer\":{\"offsetInMilliseconds\":\"soon\"}}", REQUEST);
+        assertReadFails(json, false);
+
+        SpeechletRequestEnvelope<?> lazy = readLazily(json);
+        assertEquals("request1", lazy.getRequest().getRequestId());
+        try {
+            lazy.getContext();
+            fail("Expected the context to fail on first access");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+    }
+
+    private static SpeechletRequestEnvelope<?> readLazily(final String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return SpeechletRequestEnvelope.fromJsonWithLazyContext(bytes, 0, bytes.length);
+    }
+
+    private static void assertReadFails(final String json, final boolean lazily) {
+        try {
+            if (lazily) {
+                readLazily(json);
+            } else {
+                SpeechletRequestEnvelope.fromJson(json);
+            }
+            fail("Expected reading " + json + (lazily ? " lazily" : " eagerly") + " to fail");
+        } catch (IOException ex) {
+            // Expected
+        }
+    }
+
+    private static String envelope(final String... fields) {
+        StringBuilder json = new StringBuilder("{\"version\":\"1.0\"");
+        for (String field : fields) {
+            json.append(',').append(field);
+        }
+        return json.append('}').toString();
+    }
+}
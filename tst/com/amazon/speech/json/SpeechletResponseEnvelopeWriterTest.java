@@ -0,0 +1,367 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.json;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.amazon.speech.speechlet.Directive;
+import com.amazon.speech.speechlet.SpeechletResponse;
+import com.amazon.speech.speechlet.interfaces.audioplayer.AudioItem;
+import com.amazon.speech.speechlet.interfaces.audioplayer.ClearBehavior;
+import com.amazon.speech.speechlet.interfaces.audioplayer.PlayBehavior;
+import com.amazon.speech.speechlet.interfaces.audioplayer.Stream;
+import com.amazon.speech.speechlet.interfaces.audioplayer.directive.ClearQueueDirective;
+import com.amazon.speech.speechlet.interfaces.audioplayer.directive.PlayDirective;
+import com.amazon.speech.speechlet.interfaces.audioplayer.directive.StopDirective;
+import com.amazon.speech.ui.Card;
+import com.amazon.speech.ui.Image;
+import com.amazon.speech.ui.LinkAccountCard;
+import com.amazon.speech.ui.OutputSpeech;
+import com.amazon.speech.ui.PlainTextOutputSpeech;
+import com.amazon.speech.ui.Reprompt;
+import com.amazon.speech.ui.SimpleCard;
+import com.amazon.speech.ui.SsmlOutputSpeech;
+import com.amazon.speech.ui.StandardCard;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests that {@link SpeechletResponseEnvelope} writes exactly the bytes an {@link ObjectMapper}
+ * configured like its own would, whether through {@link SpeechletResponseEnvelopeWriter} or, for
+ * subclasses, through the mapper.
+ */
+public class SpeechletResponseEnvelopeWriterTest {
+    private static final ObjectMapper REFERENCE_MAPPER = new ObjectMapper();
+    static {
+        REFERENCE_MAPPER.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    }
+
+    /**
+     * Texts covering null, empty, escaped, non-ASCII and non-BMP values.
+     */
+    private static final String[] TEXTS = {
+        null, "", "Hello", "quote \" backslash \\ newline \n tab \t control \u0001",
+        "accent \u00e9 cjk \u4e2d emoji \ud83d\ude00 </script>"
+    };
+
+    @Test
+    public void emptyEnvelope() throws Exception {
+        assertWritesLikeTheMapper(new SpeechletResponseEnvelope());
+        assertWritesLikeTheMapper(envelope(new SpeechletResponse()));
+    }
+
+    @Test
+    public void everyOutputSpeech() throws Exception {
+        for (OutputSpeech outputSpeech : outputSpeeches()) {
+            SpeechletResponse response = new SpeechletResponse();
+            response.setOutputSpeech(outputSpeech);
+            assertWritesLikeTheMapper(envelope(response));
+        }
+    }
+
+    @Test
+    public void everyCard() throws Exception {
+        for (Card card : cards()) {
+            SpeechletResponse response = new SpeechletResponse();
+            response.setCard(card);
+            assertWritesLikeTheMapper(envelope(response));
+        }
+    }
+
+    @Test
+    public void everyReprompt() throws Exception {
+        for (OutputSpeech outputSpeech : outputSpeeches()) {
+            Reprompt reprompt = new Reprompt();
+            reprompt.setOutputSpeech(outputSpeech);
+            SpeechletResponse response = new SpeechletResponse();
+            response.setReprompt(reprompt);
+            assertWritesLikeTheMapper(envelope(response));
+        }
+
+        SpeechletResponse response = new SpeechletResponse();
+        response.setReprompt(new CustomReprompt());
+        assertWritesLikeTheMapper(envelope(response));
+    }
+
+    @Test
+    public void everyDirective() throws Exception {
+        for (List<Directive> directives : directiveLists()) {
+            SpeechletResponse response = new SpeechletResponse();
+            response.setDirectives(directives);
+            assertWritesLikeTheMapper(envelope(response));
+        }
+    }
+
+    @Test
+    public void everySessionAttributeMap() throws Exception {
+        for (Map<String, Object> sessionAttributes : sessionAttributeMaps()) {
+            SpeechletResponseEnvelope envelope = envelope(new SpeechletResponse());
+            envelope.setSessionAttributes(sessionAttributes);
+            assertWritesLikeTheMapper(envelope);
+        }
+    }
+
+    @Test
+    public void versions() throws Exception {
+        for (String text : TEXTS) {
+            SpeechletResponseEnvelope envelope = new SpeechletResponseEnvelope();
+            envelope.setVersion(text);
+            assertWritesLikeTheMapper(envelope);
+        }
+    }
+
+    @Test
+    public void subclasses() throws Exception {
+        assertWritesLikeTheMapper(new CustomEnvelope());
+
+        SpeechletResponseEnvelope envelope = envelope(new CustomResponse());
+        assertWritesLikeTheMapper(envelope);
+
+        SpeechletResponse response = new SpeechletResponse();
+        response.setOutputSpeech(new CustomOutputSpeech());
+        response.setCard(new CustomCard());
+        assertWritesLikeTheMapper(envelope(response));
+
+        StandardCard card = new StandardCard();
+        card.setImage(new CustomImage());
+        response = new SpeechletResponse();
+        response.setCard(card);
+        assertWritesLikeTheMapper(envelope(response));
+    }
+
+    @Test
+    public void constantResponse() throws Exception {
+        SpeechletResponse response = new SpeechletResponse();
+        response.setConstant(true);
+        assertWritesLikeTheMapper(envelope(response));
+    }
+
+    @Test
+    public void combinations() throws Exception {
+        List<OutputSpeech> outputSpeeches = outputSpeeches();
+        List<Card> cards = cards();
+        List<List<Directive>> directiveLists = directiveLists();
+        List<Map<String, Object>> sessionAttributeMaps = sessionAttributeMaps();
+
+        Random random = new Random(1);
+        for (int i = 0; i < 2000; i++) {
+            SpeechletResponseEnvelope envelope =
+                    random.nextInt(20) == 0 ? new CustomEnvelope()
+                            : new SpeechletResponseEnvelope();
+            if (random.nextBoolean()) {
+                envelope.setVersion(TEXTS[random.nextInt(TEXTS.length)]);
+            }
+            if (random.nextInt(10) > 0) {
+                SpeechletResponse response =
+                        random.nextInt(20) == 0 ? new CustomResponse() : new SpeechletResponse();
+                response.setOutputSpeech(pick(random, outputSpeeches));
+                response.setCard(pick(random, cards));
+                response.setDirectives(pick(random, directiveLists));
+                if (random.nextBoolean()) {
+                    Reprompt reprompt = new Reprompt();
+                    reprompt.setOutputSpeech(pick(random, outputSpeeches));
+                    response.setReprompt(reprompt);
+                }
+                response.setShouldEndSession(random.nextBoolean());
+                envelope.setResponse(response);
+            }
+            envelope.setSessionAttributes(pick(random, sessionAttributeMaps));
+            assertWritesLikeTheMapper(envelope);
+        }
+    }
+
+    private static void assertWritesLikeTheMapper(final SpeechletResponseEnvelope envelope)
+            throws Exception {
+        // Bytes and characters are compared separately, as non-BMP characters are escaped in one
+        // and not in the other
+        String expectedBytes = new String(REFERENCE_MAPPER.writeValueAsBytes(envelope), "UTF-8");
+        assertEquals(expectedBytes, new String(envelope.toJsonBytes(), "UTF-8"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        envelope.toJson(out);
+        assertEquals(expectedBytes, new String(out.toByteArray(), "UTF-8"));
+
+        assertEquals(REFERENCE_MAPPER.writeValueAsString(envelope), envelope.toJsonString());
+    }
+
+    private static SpeechletResponseEnvelope envelope(final SpeechletResponse response) {
+        SpeechletResponseEnvelope envelope = new SpeechletResponseEnvelope();
+        envelope.setVersion("1.0");
+        envelope.setResponse(response);
+        return envelope;
+    }
+
+    private static <T> T pick(final Random random, final List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static List<OutputSpeech> outputSpeeches() {
+        List<OutputSpeech> outputSpeeches = new ArrayList<OutputSpeech>();
+        outputSpeeches.add(null);
+        for (String text : TEXTS) {
+            PlainTextOutputSpeech plainText = new PlainTextOutputSpeech();
+            plainText.setText(text);
+            plainText.setId(text);
+            outputSpeeches.add(plainText);
+
+            SsmlOutputSpeech ssml = new SsmlOutputSpeech();
+            ssml.setSsml(text);
+            outputSpeeches.add(ssml);
+        }
+        outputSpeeches.add(new CustomOutputSpeech());
+        return outputSpeeches;
+    }
+
+    private static List<Card> cards() {
+        List<Card> cards = new ArrayList<Card>();
+        cards.add(null);
+        for (String text : TEXTS) {
+            SimpleCard simpleCard = new SimpleCard();
+            simpleCard.setTitle(text);
+            simpleCard.setContent(text);
+            cards.add(simpleCard);
+
+            StandardCard standardCard = new StandardCard();
+            standardCard.setTitle(text);
+            standardCard.setText(text);
+            cards.add(standardCard);
+
+            Image image = new Image();
+            image.setSmallImageUrl(text);
+            image.setLargeImageUrl("https://example.com/large.png");
+            StandardCard cardWithImage = new StandardCard();
+            cardWithImage.setText(text);
+            cardWithImage.setImage(image);
+            cards.add(cardWithImage);
+
+            StandardCard cardWithEmptyImage = new StandardCard();
+            cardWithEmptyImage.setImage(new Image());
+            cards.add(cardWithEmptyImage);
+
+            LinkAccountCard linkAccountCard = new LinkAccountCard();
+            linkAccountCard.setTitle(text);
+            cards.add(linkAccountCard);
+        }
+        cards.add(new CustomCard());
+        return cards;
+    }
+
+    private static List<List<Directive>> directiveLists() {
+        List<List<Directive>> directiveLists = new ArrayList<List<Directive>>();
+        directiveLists.add(null);
+        directiveLists.add(Collections.<Directive>emptyList());
+        directiveLists.add(Arrays.<Directive>asList(new PlayDirective(), new StopDirective(),
+                new ClearQueueDirective()));
+
+        for (PlayBehavior playBehavior : PlayBehavior.values()) {
+            Stream stream = new Stream();
+            stream.setToken("token");
+            stream.setExpectedPreviousToken(playBehavior.ordinal() % 2 == 0 ? "previous" : null);
+            stream.setUrl("https://example.com/stream.mp3");
+            stream.setOffsetInMilliseconds(playBehavior.ordinal() * 1000L);
+            AudioItem audioItem = new AudioItem();
+            audioItem.setStream(stream);
+            PlayDirective playDirective = new PlayDirective();
+            playDirective.setPlayBehavior(playBehavior);
+            playDirective.setAudioItem(audioItem);
+            directiveLists.add(Collections.<Directive>singletonList(playDirective));
+        }
+
+        PlayDirective playDirectiveWithEmptyAudioItem = new PlayDirective();
+        playDirectiveWithEmptyAudioItem.setAudioItem(new AudioItem());
+        directiveLists.add(Collections.<Directive>singletonList(playDirectiveWithEmptyAudioItem));
+
+        for (ClearBehavior clearBehavior : ClearBehavior.values()) {
+            ClearQueueDirective clearQueueDirective = new ClearQueueDirective();
+            clearQueueDirective.setClearBehavior(clearBehavior);
+            directiveLists.add(Collections.<Directive>singletonList(clearQueueDirective));
+        }
+        return directiveLists;
+    }
+
+    private static List<Map<String, Object>> sessionAttributeMaps() {
+        List<Map<String, Object>> sessionAttributeMaps = new ArrayList<Map<String, Object>>();
+        sessionAttributeMaps.add(null);
+        sessionAttributeMaps.add(new HashMap<String, Object>());
+
+        Map<String, Object> sessionAttributes = new LinkedHashMap<String, Object>();
+        sessionAttributes.put("number", 1);
+        sessionAttributes.put("null", null);
+        sessionAttributes.put("list", Arrays.asList(1, null, "text"));
+        sessionAttributes.put("map", Collections.singletonMap("key", null));
+        sessionAttributes.put("double", 1.5);
+        sessionAttributes.put("text", TEXTS[4]);
+        sessionAttributes.put("bean", new AttributeBean());
+        sessionAttributeMaps.add(sessionAttributes);
+        return sessionAttributeMaps;
+    }
+
+    public static class AttributeBean {
+        public String getDate() {
+            return "2015-07-04";
+        }
+
+        public Object getNone() {
+            return null;
+        }
+    }
+
+    public static class CustomEnvelope extends SpeechletResponseEnvelope {
+        public int getExtra() {
+            return 8;
+        }
+    }
+
+    public static class CustomResponse extends SpeechletResponse {
+        public int getExtra() {
+            return 7;
+        }
+    }
+
+    public static class CustomOutputSpeech extends OutputSpeech {
+        public String getExtra() {
+            return "speech";
+        }
+    }
+
+    public static class CustomCard extends Card {
+        public String getExtra() {
+            return "card";
+        }
+    }
+
+    public static class CustomImage extends Image {
+        public String getExtra() {
+            return "image";
+        }
+    }
+
+    public static class CustomReprompt extends Reprompt {
+        public String getExtra() {
+            return "reprompt";
+        }
+    }
+}
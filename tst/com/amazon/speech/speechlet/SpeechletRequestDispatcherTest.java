@@ -0,0 +1,177 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazon.speech.json.SpeechletRequestEnvelope;
+import com.amazon.speech.json.SpeechletResponseEnvelope;
+import com.amazon.speech.slu.Intent;
+import com.amazon.speech.speechlet.store.InMemorySessionStore;
+import com.amazon.speech.speechlet.store.SessionStore;
+import com.amazon.speech.ui.PlainTextOutputSpeech;
+
+/**
+ * Tests how {@link SpeechletRequestDispatcher} keeps session attributes in a {@link SessionStore}
+ * and routes to registered request handlers.
+ */
+public class SpeechletRequestDispatcherTest {
+    private static final String SESSION_ID = "session1";
+
+    private InMemorySessionStore sessionStore;
+    private SpeechletRequestDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        sessionStore = new InMemorySessionStore(10, 1, TimeUnit.MINUTES);
+        dispatcher = new SpeechletRequestDispatcher(new ReplyingSpeechlet(), sessionStore);
+    }
+
+    @Test
+    public void responseKeepingTheSessionOpenStoresTheAttributes() throws Exception {
+        Session session = session(false, attributes("color", "blue"));
+
+        SpeechletResponseEnvelope responseEnvelope = dispatch("Ask", session);
+
+        assertEquals(Collections.singletonMap(SessionStore.HANDLE_ATTRIBUTE, SESSION_ID),
+                responseEnvelope.getSessionAttributes());
+        assertEquals(attributes("color", "blue"), sessionStore.load(SESSION_ID));
+    }
+
+    @Test
+    public void storedAttributesAreRestoredFromTheHandle() throws Exception {
+        sessionStore.save(SESSION_ID, attributes("color", "blue"));
+        Session session =
+                session(false, attributes(SessionStore.HANDLE_ATTRIBUTE, SESSION_ID));
+
+        dispatch("Ask", session);
+
+        assertEquals(attributes("color", "blue"), session.getAttributes());
+    }
+
+    @Test
+    public void responseEndingTheSessionRemovesTheStoredAttributes() throws Exception {
+        sessionStore.save(SESSION_ID, attributes("color", "blue"));
+        Session session =
+                session(false, attributes(SessionStore.HANDLE_ATTRIBUTE, SESSION_ID));
+
+        SpeechletResponseEnvelope responseEnvelope = dispatch("Tell", session);
+
+        assertNull(responseEnvelope.getSessionAttributes());
+        assertNull(sessionStore.load(SESSION_ID));
+        assertEquals(0, sessionStore.size());
+    }
+
+    @Test
+    public void newSessionEndingAtOnceStoresNothing() throws Exception {
+        dispatch("Tell", session(true, attributes("color", "blue")));
+
+        assertEquals(0, sessionStore.size());
+    }
+
+    @Test
+    public void registeredHandlerReplacesTheSpeechletForItsRequestType() throws Exception {
+        dispatcher.registerRequestHandler(IntentRequest.class,
+                new SpeechletRequestDispatcher.RequestTypeHandler<IntentRequest>() {
+                    @Override
+                    public SpeechletResponse handle(
+                            SpeechletRequestEnvelope<IntentRequest> requestEnvelope) {
+                        PlainTextOutputSpeech outputSpeech = new PlainTextOutputSpeech();
+                        outputSpeech.setText("registered "
+                                + requestEnvelope.getRequest().getIntent().getName());
+                        return SpeechletResponse.newTellResponse(outputSpeech);
+                    }
+                }, false);
+
+        SpeechletResponseEnvelope responseEnvelope =
+                dispatch("Ask", session(false, attributes("color", "blue")));
+
+        assertEquals("registered Ask", ((PlainTextOutputSpeech) responseEnvelope.getResponse()
+                .getOutputSpeech()).getText());
+        assertNull(responseEnvelope.getSessionAttributes());
+    }
+
+    private SpeechletResponseEnvelope dispatch(final String intentName, final Session session)
+            throws Exception {
+        IntentRequest request =
+                IntentRequest
+                        .builder()
+                        .withRequestId("request1")
+                        .withIntent(Intent.builder().withName(intentName).build())
+                        .build();
+        SpeechletRequestEnvelope<IntentRequest> requestEnvelope =
+                SpeechletRequestEnvelope
+                        .<IntentRequest>builder()
+                        .withVersion("1.0")
+                        .withRequest(request)
+                        .withSession(session)
+                        .build();
+        return dispatcher.dispatchSpeechletCall(requestEnvelope, session);
+    }
+
+    private static Session session(final boolean isNew, final Map<String, Object> attributes) {
+        return Session
+                .builder()
+                .withSessionId(SESSION_ID)
+                .withIsNew(isNew)
+                .withAttributes(attributes)
+                .build();
+    }
+
+    private static Map<String, Object> attributes(final String name, final Object value) {
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        attributes.put(name, value);
+        return attributes;
+    }
+
+    /**
+     * Keeps the session open for the {@code Ask} intent and ends it for any other.
+     */
+    private static class ReplyingSpeechlet implements SpeechletV2 {
+        @Override
+        public void onSessionStarted(
+                SpeechletRequestEnvelope<SessionStartedRequest> requestEnvelope) {
+        }
+
+        @Override
+        public SpeechletResponse onLaunch(SpeechletRequestEnvelope<LaunchRequest> requestEnvelope) {
+            return null;
+        }
+
+        @Override
+        public SpeechletResponse onIntent(SpeechletRequestEnvelope<IntentRequest> requestEnvelope) {
+            PlainTextOutputSpeech outputSpeech = new PlainTextOutputSpeech();
+            outputSpeech.setText("Okay");
+            SpeechletResponse response = SpeechletResponse.newTellResponse(outputSpeech);
+            response.setShouldEndSession(!"Ask".equals(requestEnvelope
+                    .getRequest()
+                    .getIntent()
+                    .getName()));
+            return response;
+        }
+
+        @Override
+        public void onSessionEnded(SpeechletRequestEnvelope<SessionEndedRequest> requestEnvelope) {
+        }
+    }
+}
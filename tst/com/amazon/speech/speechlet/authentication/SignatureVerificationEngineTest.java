@@ -0,0 +1,135 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.authentication;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.SignatureException;
+import java.util.Base64;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.amazon.speech.Sdk;
+
+/**
+ * Tests {@link SignatureVerificationEngine}.
+ */
+public class SignatureVerificationEngineTest {
+    private static final byte[] REQUEST =
+            "{\"version\":\"1.0\",\"request\":{}}".getBytes(StandardCharsets.UTF_8);
+
+    private static KeyPair keyPair;
+    private static KeyPair otherKeyPair;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(2048);
+        keyPair = keyPairGenerator.generateKeyPair();
+        otherKeyPair = keyPairGenerator.generateKeyPair();
+    }
+
+    @Test
+    public void validSignatureIsVerified() throws Exception {
+        String signature = sign(keyPair, REQUEST);
+
+        assertTrue(SignatureVerificationEngine.verify(keyPair.getPublic(), REQUEST, 0,
+                REQUEST.length, signature));
+    }
+
+    @Test
+    public void signatureOfARegionIsVerified() throws Exception {
+        byte[] buffer = new byte[REQUEST.length + 10];
+        System.arraycopy(REQUEST, 0, buffer, 4, REQUEST.length);
+
+        assertTrue(SignatureVerificationEngine.verify(keyPair.getPublic(), buffer, 4,
+                REQUEST.length, sign(keyPair, REQUEST)));
+    }
+
+    @Test
+    public void tamperedRequestIsRejected() throws Exception {
+        String signature = sign(keyPair, REQUEST);
+        byte[] tampered = REQUEST.clone();
+        tampered[2] = 'V';
+
+        assertFalse(SignatureVerificationEngine.verify(keyPair.getPublic(), tampered, 0,
+                tampered.length, signature));
+    }
+
+    @Test
+    public void signatureOfAnotherKeyIsRejected() throws Exception {
+        String signature = sign(otherKeyPair, REQUEST);
+
+        assertFalse(SignatureVerificationEngine.verify(keyPair.getPublic(), REQUEST, 0,
+                REQUEST.length, signature));
+    }
+
+    @Test
+    public void alternatingKeysAreEachVerified() throws Exception {
+        String signature = sign(keyPair, REQUEST);
+        String otherSignature = sign(otherKeyPair, REQUEST);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(SignatureVerificationEngine.verify(keyPair.getPublic(), REQUEST, 0,
+                    REQUEST.length, signature));
+            assertTrue(SignatureVerificationEngine.verify(otherKeyPair.getPublic(), REQUEST, 0,
+                    REQUEST.length, otherSignature));
+        }
+    }
+
+    @Test
+    public void lineWrappedSignatureIsVerified() throws Exception {
+        byte[] signature = Base64.getMimeEncoder().encode(rawSignature(keyPair, REQUEST));
+
+        assertTrue(SignatureVerificationEngine.verify(keyPair.getPublic(), REQUEST, 0,
+                REQUEST.length, new String(signature, StandardCharsets.US_ASCII)));
+    }
+
+    @Test(expected = SignatureException.class)
+    public void malformedBase64IsRejected() throws Exception {
+        SignatureVerificationEngine.verify(keyPair.getPublic(), REQUEST, 0, REQUEST.length,
+                "AAAA=AAA");
+    }
+
+    @Test
+    public void failedVerificationDoesNotAffectTheNextOne() throws Exception {
+        try {
+            SignatureVerificationEngine.verify(keyPair.getPublic(), REQUEST, 0, REQUEST.length,
+                    "AAAA");
+        } catch (SignatureException ex) {
+            // A signature of the wrong length may be rejected with an exception
+        }
+
+        assertTrue(SignatureVerificationEngine.verify(keyPair.getPublic(), REQUEST, 0,
+                REQUEST.length, sign(keyPair, REQUEST)));
+    }
+
+    private static String sign(final KeyPair keyPair, final byte[] data) throws Exception {
+        return Base64.getEncoder().encodeToString(rawSignature(keyPair, data));
+    }
+
+    private static byte[] rawSignature(final KeyPair keyPair, final byte[] data)
+            throws Exception {
+        Signature signature = Signature.getInstance(Sdk.SIGNATURE_ALGORITHM);
+        signature.initSign(keyPair.getPrivate());
+        signature.update(data);
+        return signature.sign();
+    }
+}
@@ -0,0 +1,349 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.authentication;
+
+import static com.amazon.speech.speechlet.authentication.TestCertificates.certificate;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazon.speech.speechlet.authentication.SigningCertificateCache.CertificateLoader;
+
+/**
+ * Tests {@link SigningCertificateCache} with a scripted {@link CertificateLoader}.
+ */
+public class SigningCertificateCacheTest {
+    private static final String URL = "https://s3.amazonaws.com/echo.api/echo-api-cert.pem";
+    private static final String OTHER_URL = "https://s3.amazonaws.com/echo.api/echo-api-cert-2.pem";
+    private static final String THIRD_URL = "https://s3.amazonaws.com/echo.api/echo-api-cert-3.pem";
+
+    private static final X509Certificate VALID = certificate(TestCertificates.VALID);
+    private static final X509Certificate ROTATED = certificate(TestCertificates.ROTATED);
+    private static final X509Certificate EXPIRED = certificate(TestCertificates.EXPIRED);
+    private static final X509Certificate NOT_YET_VALID =
+            certificate(TestCertificates.NOT_YET_VALID);
+
+    private ScriptedLoader loader;
+    private SigningCertificateCache cache;
+
+    @Before
+    public void setUp() {
+        loader = new ScriptedLoader();
+    }
+
+    @After
+    public void tearDown() {
+        if (cache != null) {
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void validCertificateIsLoadedOnce() throws Exception {
+        cache = new SigningCertificateCache(loader, 4, TimeUnit.HOURS.toMillis(1), 0);
+        loader.respond(URL, VALID);
+
+        assertSame(VALID, cache.get(URL));
+        assertSame(VALID, cache.get(URL));
+        assertEquals(1, loader.loadCount(URL));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void expiredCertificateIsLoadedAgain() throws Exception {
+        cache = new SigningCertificateCache(loader, 4, TimeUnit.HOURS.toMillis(1), 0);
+        loader.respond(URL, EXPIRED, VALID);
+
+        assertSame(EXPIRED, cache.get(URL));
+        assertSame(VALID, cache.get(URL));
+        assertSame(VALID, cache.get(URL));
+        assertEquals(2, loader.loadCount(URL));
+    }
+
+    @Test
+    public void notYetValidCertificateIsLoadedAgain() throws Exception {
+        cache = new SigningCertificateCache(loader, 4, TimeUnit.HOURS.toMillis(1), 0);
+        loader.respond(URL, NOT_YET_VALID, VALID);
+
+        assertSame(NOT_YET_VALID, cache.get(URL));
+        assertSame(VALID, cache.get(URL));
+        assertEquals(2, loader.loadCount(URL));
+    }
+
+    @Test
+    public void failedLoadIsNotCached() throws Exception {
+        cache = new SigningCertificateCache(loader, 4, TimeUnit.HOURS.toMillis(1), 0);
+        loader.respond(URL, new CertificateException("Unreachable"), VALID);
+
+        try {
+            cache.get(URL);
+            fail("Expected the load to fail");
+        } catch (CertificateException ex) {
+            assertEquals("Unreachable", ex.getMessage());
+        }
+        assertEquals(0, cache.size());
+
+        assertSame(VALID, cache.get(URL));
+        assertEquals(2, loader.loadCount(URL));
+    }
+
+    @Test
+    public void rotatedCertificateIsPickedUpInTheBackground() throws Exception {
+        cache = new SigningCertificateCache(loader, 4, 50, 0);
+        loader.respond(URL, VALID, ROTATED);
+
+        assertSame(VALID, cache.get(URL));
+
+        awaitLoadCount(URL, 2);
+        assertSame(ROTATED, awaitCertificate(URL, ROTATED));
+    }
+
+    @Test
+    public void failedBackgroundRefreshKeepsTheCachedCertificateAndIsRetried() throws Exception {
+        cache = new SigningCertificateCache(loader, 4, 50, 0);
+        loader.respond(URL, VALID, new CertificateException("Unreachable"),
+                new CertificateException("Unreachable"), ROTATED);
+
+        assertSame(VALID, cache.get(URL));
+
+        awaitLoadCount(URL, 3);
+        assertSame(VALID, cache.get(URL));
+
+        awaitLoadCount(URL, 4);
+        assertSame(ROTATED, awaitCertificate(URL, ROTATED));
+    }
+
+    @Test
+    public void shutdownStopsBackgroundRefreshes() throws Exception {
+        cache = new SigningCertificateCache(loader, 4, 20, 0);
+        loader.respond(URL, VALID);
+        cache.get(URL);
+
+        cache.shutdown();
+        int loadCount = loader.loadCount(URL);
+        Thread.sleep(200);
+
+        assertTrue(loader.loadCount(URL) <= loadCount + 1);
+        assertSame(VALID, cache.get(URL));
+    }
+
+    @Test
+    public void leastRecentlyUsedUrlIsEvicted() throws Exception {
+        cache = new SigningCertificateCache(loader, 2, TimeUnit.HOURS.toMillis(1), 0);
+        loader.respond(URL, VALID);
+        loader.respond(OTHER_URL, ROTATED);
+        loader.respond(THIRD_URL, VALID);
+
+        cache.get(URL);
+        cache.get(OTHER_URL);
+        // Makes OTHER_URL the least recently used
+        cache.get(URL);
+        cache.get(THIRD_URL);
+
+        assertEquals(2, cache.size());
+        cache.get(URL);
+        cache.get(THIRD_URL);
+        assertEquals(1, loader.loadCount(URL));
+        assertEquals(1, loader.loadCount(THIRD_URL));
+
+        cache.get(OTHER_URL);
+        assertEquals(2, loader.loadCount(OTHER_URL));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void clearRemovesAllCertificates() throws Exception {
+        cache = new SigningCertificateCache(loader, 4, TimeUnit.HOURS.toMillis(1), 0);
+        loader.respond(URL, VALID);
+        cache.get(URL);
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        cache.get(URL);
+        assertEquals(2, loader.loadCount(URL));
+    }
+
+    @Test
+    public void concurrentMissesShareASingleLoad() throws Exception {
+        cache = new SigningCertificateCache(loader, 4, TimeUnit.HOURS.toMillis(1), 0);
+        loader.respond(URL, VALID);
+        loader.blockUntilReleased();
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<X509Certificate>> results = new ArrayList<Future<X509Certificate>>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(new Callable<X509Certificate>() {
+                    @Override
+                    public X509Certificate call() throws Exception {
+                        return cache.get(URL);
+                    }
+                }));
+            }
+
+            assertTrue(loader.awaitEntered());
+            // Gives the other callers time to join the load in flight
+            Thread.sleep(200);
+            loader.release();
+
+            for (Future<X509Certificate> result : results) {
+                assertSame(VALID, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loader.loadCount(URL));
+    }
+
+    @Test
+    public void concurrentMissesShareAFailedLoad() throws Exception {
+        cache = new SigningCertificateCache(loader, 4, TimeUnit.HOURS.toMillis(1), 0);
+        loader.respond(URL, new CertificateException("Untrusted"), VALID);
+        loader.blockUntilReleased();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Callable<X509Certificate> get = new Callable<X509Certificate>() {
+                @Override
+                public X509Certificate call() throws Exception {
+                    return cache.get(URL);
+                }
+            };
+            Future<X509Certificate> first = executor.submit(get);
+            assertTrue(loader.awaitEntered());
+            Future<X509Certificate> second = executor.submit(get);
+            Thread.sleep(200);
+            loader.release();
+
+            assertFailedWith(first, "Untrusted");
+            assertFailedWith(second, "Untrusted");
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loader.loadCount(URL));
+        assertSame(VALID, cache.get(URL));
+    }
+
+    private static void assertFailedWith(final Future<X509Certificate> result,
+            final String message) throws Exception {
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected the load to fail");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof CertificateException);
+            assertEquals(message, ex.getCause().getMessage());
+        }
+    }
+
+    private void awaitLoadCount(final String url, final int loadCount) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loader.loadCount(url) < loadCount) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Expected " + loadCount + " loads but was " + loader.loadCount(url));
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private X509Certificate awaitCertificate(final String url, final X509Certificate expected)
+            throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        X509Certificate certificate = cache.get(url);
+        while (certificate != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            certificate = cache.get(url);
+        }
+        return certificate;
+    }
+
+    /**
+     * Returns, for each URL, the scripted responses in order and then the last one forever.
+     */
+    private static class ScriptedLoader implements CertificateLoader {
+        private final ConcurrentMap<String, ConcurrentLinkedQueue<Object>> responses =
+                new ConcurrentHashMap<String, ConcurrentLinkedQueue<Object>>();
+        private final ConcurrentMap<String, AtomicInteger> loadCounts =
+                new ConcurrentHashMap<String, AtomicInteger>();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private volatile CountDownLatch released = new CountDownLatch(0);
+
+        void respond(final String url, final Object... responsesInOrder) {
+            ConcurrentLinkedQueue<Object> queue = new ConcurrentLinkedQueue<Object>();
+            for (Object response : responsesInOrder) {
+                queue.add(response);
+            }
+            responses.put(url, queue);
+            loadCounts.put(url, new AtomicInteger());
+        }
+
+        void blockUntilReleased() {
+            released = new CountDownLatch(1);
+        }
+
+        boolean awaitEntered() throws InterruptedException {
+            return entered.await(5, TimeUnit.SECONDS);
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        int loadCount(final String url) {
+            return loadCounts.get(url).get();
+        }
+
+        @Override
+        public X509Certificate load(final String signingCertificateChainUrl)
+                throws CertificateException {
+            loadCounts.get(signingCertificateChainUrl).incrementAndGet();
+            entered.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CertificateException(ex);
+            }
+
+            ConcurrentLinkedQueue<Object> queue = responses.get(signingCertificateChainUrl);
+            Object response = queue.size() > 1 ? queue.poll() : queue.peek();
+            if (response instanceof CertificateException) {
+                throw (CertificateException) response;
+            }
+            return (X509Certificate) response;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.authentication;
+
+import static com.amazon.speech.speechlet.authentication.TestCertificates.certificate;
+import static com.amazon.speech.speechlet.authentication.TestCertificates.trustStore;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.amazon.speech.Sdk;
+
+/**
+ * Tests how {@link SpeechletRequestSignatureVerifier} validates certificate chains against its
+ * trust store, with a locally generated certificate authority.
+ */
+public class SpeechletRequestSignatureVerifierTest {
+    private static final X509Certificate[] TRUSTED_CHAIN = {
+        certificate(TestCertificates.SIGNING), certificate(TestCertificates.ROOT_CA)
+    };
+
+    private static final X509Certificate[] OTHER_CHAIN = {
+        certificate(TestCertificates.OTHER_SIGNING), certificate(TestCertificates.OTHER_ROOT_CA)
+    };
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @After
+    public void tearDown() throws Exception {
+        System.clearProperty(Sdk.SIGNATURE_TRUST_STORE_SYSTEM_PROPERTY);
+        System.clearProperty(Sdk.SIGNATURE_TRUST_STORE_PASSWORD_SYSTEM_PROPERTY);
+        SpeechletRequestSignatureVerifier.setTrustStore(null);
+    }
+
+    @Test
+    public void chainIssuedByATrustedAuthorityIsAccepted() throws Exception {
+        SpeechletRequestSignatureVerifier.setTrustStore(trustStore(TestCertificates.ROOT_CA));
+
+        SpeechletRequestSignatureVerifier.checkCertificateChainTrusted(TRUSTED_CHAIN);
+        // The second check is answered from the chains found trusted before
+        SpeechletRequestSignatureVerifier.checkCertificateChainTrusted(TRUSTED_CHAIN);
+    }
+
+    @Test
+    public void signingCertificateAloneIsAcceptedThroughItsTrustedAuthority() throws Exception {
+        SpeechletRequestSignatureVerifier.setTrustStore(trustStore(TestCertificates.ROOT_CA));
+
+        SpeechletRequestSignatureVerifier.checkCertificateChainTrusted(new X509Certificate[] {
+            certificate(TestCertificates.SIGNING)
+        });
+    }
+
+    @Test
+    public void chainIssuedByAnUntrustedAuthorityIsRejected() throws Exception {
+        SpeechletRequestSignatureVerifier.setTrustStore(trustStore(TestCertificates.ROOT_CA));
+
+        assertUntrusted(OTHER_CHAIN);
+        // A rejected chain is not remembered
+        assertUntrusted(OTHER_CHAIN);
+    }
+
+    @Test
+    public void chainFoundTrustedBeforeIsRejectedOnceTheTrustStoreIsReplaced() throws Exception {
+        SpeechletRequestSignatureVerifier.setTrustStore(trustStore(TestCertificates.ROOT_CA));
+        SpeechletRequestSignatureVerifier.checkCertificateChainTrusted(TRUSTED_CHAIN);
+
+        SpeechletRequestSignatureVerifier.setTrustStore(trustStore(TestCertificates.OTHER_ROOT_CA));
+
+        assertUntrusted(TRUSTED_CHAIN);
+        SpeechletRequestSignatureVerifier.checkCertificateChainTrusted(OTHER_CHAIN);
+    }
+
+    @Test
+    public void chainIsRejectedOnceTheTrustStoreGoesBackToTheDefault() throws Exception {
+        SpeechletRequestSignatureVerifier.setTrustStore(trustStore(TestCertificates.ROOT_CA));
+        SpeechletRequestSignatureVerifier.checkCertificateChainTrusted(TRUSTED_CHAIN);
+
+        SpeechletRequestSignatureVerifier.setTrustStore(null);
+
+        assertUntrusted(TRUSTED_CHAIN);
+    }
+
+    @Test
+    public void trustStoreIsLoadedFromTheSystemProperties() throws Exception {
+        File trustStoreFile = temporaryFolder.newFile("truststore");
+        KeyStore trustStore = trustStore(TestCertificates.ROOT_CA);
+        try (OutputStream out = new FileOutputStream(trustStoreFile)) {
+            trustStore.store(out, "changeit".toCharArray());
+        }
+        System.setProperty(Sdk.SIGNATURE_TRUST_STORE_SYSTEM_PROPERTY,
+                trustStoreFile.getAbsolutePath());
+        System.setProperty(Sdk.SIGNATURE_TRUST_STORE_PASSWORD_SYSTEM_PROPERTY, "changeit");
+        SpeechletRequestSignatureVerifier.setTrustStore(null);
+
+        SpeechletRequestSignatureVerifier.checkCertificateChainTrusted(TRUSTED_CHAIN);
+        assertUntrusted(OTHER_CHAIN);
+    }
+
+    private static void assertUntrusted(final X509Certificate[] certificateChain)
+            throws Exception {
+        try {
+            SpeechletRequestSignatureVerifier.checkCertificateChainTrusted(certificateChain);
+            fail("Expected the certificate chain to be rejected");
+        } catch (CertificateException ex) {
+            // Expected
+        }
+    }
+}
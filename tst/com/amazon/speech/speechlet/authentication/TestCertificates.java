@@ -0,0 +1,195 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.authentication;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+
+import com.amazon.speech.Sdk;
+
+/**
+ * Certificates generated with keytool for the authentication tests, as Base64 encoded DER.
+ */
+final class TestCertificates {
+    /**
+     * Self-signed, valid from 2020 to 2119.
+     */
+    static final String VALID =
+            "MIIBOjCB4KADAgECAgkAvYTYHzm5ovUwCgYIKoZIzj0EAwIwEDEOMAwGA1UEAxMFdmFsaWQw"
+            + "IBcNMjAwMTAxMDAwMDAwWhgPMjExOTEyMDgwMDAwMDBaMBAxDjAMBgNVBAMTBXZhbGlkMFkw"
+            + "EwYHKoZIzj0CAQYIKoZIzj0DAQcDQgAEluEBYez0uLr0tsiRX0w2YbHtfQ1EKgEoB9mKechI"
+            + "36QaAIrIRe7Vkf2bSZw5orisNmws3c3BMkp0b46dnFB+1qMhMB8wHQYDVR0OBBYEFMOMYK3t"
+            + "AmFkZeda4sgPXvaj4fQbMAoGCCqGSM49BAMCA0kAMEYCIQDSN8/r+nc+ok8XjKDNjPOxIR1F"
+            + "VAbYyZhhDzYOtfHzmgIhAMpynSQQkkNQYCqidheQJALd2Zokkyl4mboNCY0PyMS/";
+
+    /**
+     * Self-signed with another key, valid from 2020 to 2119.
+     */
+    static final String ROTATED =
+            "MIIBOzCB46ADAgECAggrtG7qLBpeHjAKBggqhkjOPQQDAjASMRAwDgYDVQQDEwdyb3RhdGVk"
+            + "MCAXDTIwMDEwMTAwMDAwMFoYDzIxMTkxMjA4MDAwMDAwWjASMRAwDgYDVQQDEwdyb3RhdGVk"
+            + "MFkwEwYHKoZIzj0CAQYIKoZIzj0DAQcDQgAEUK5cpoTPbQMIi1cop76tzH1CEr7KCwLKHMDk"
+            + "mgPbCinz2KiLt4lDdk0p+LtPgnk0WgyDnzz+fqlP6K12WRmta6MhMB8wHQYDVR0OBBYEFLeA"
+            + "r+lEA6oqb/y1lYiNeVQsNuY1MAoGCCqGSM49BAMCA0cAMEQCIGc0IUjqHqLO3rHVRdZ8SOwz"
+            + "sDhGyVdYkeG0YlEzP4csAiBYbGDeglu2GVEjPfW0OnHb2thp2vYTVQujzrl4zhthcA==";
+
+    /**
+     * Self-signed, valid during 2000 only.
+     */
+    static final String EXPIRED =
+            "MIIBOzCB4qADAgECAgkAi7fGl+ijWLswCgYIKoZIzj0EAwIwEjEQMA4GA1UEAxMHZXhwaXJl"
+            + "ZDAeFw0wMDAxMDEwMDAwMDBaFw0wMDEyMzEwMDAwMDBaMBIxEDAOBgNVBAMTB2V4cGlyZWQw"
+            + "WTATBgcqhkjOPQIBBggqhkjOPQMBBwNCAAR9Y/lM3Mrb6h0b26dDKs+vQXnR2LIQRBzPHnxg"
+            + "hRbecaFo4m3ovCmkSz/Qdn6jLju5h5fUfFdRU/11S/QlQNSwoyEwHzAdBgNVHQ4EFgQUN0Rr"
+            + "heEBWNBGfD+iFBk7Tyvc1GkwCgYIKoZIzj0EAwIDSAAwRQIhAPQFfzaEu32k/J+AzGO6ffRP"
+            + "xvovO5ZbCOdBdcSSt1TzAiB3sbCTmBjPuTOhTYEiI/5DoMg6s+V2ABdkAv0JjvvKgA==";
+
+    /**
+     * Self-signed, valid during 2100 only.
+     */
+    static final String NOT_YET_VALID =
+            "MIIBRzCB7aADAgECAggLMkkNOaE1VzAKBggqhkjOPQQDAjAWMRQwEgYDVQQDEwtub3R5ZXR2"
+            + "YWxpZDAiGA8yMTAwMDEwMTAwMDAwMFoYDzIxMDEwMTAxMDAwMDAwWjAWMRQwEgYDVQQDEwtu"
+            + "b3R5ZXR2YWxpZDBZMBMGByqGSM49AgEGCCqGSM49AwEHA0IABEUKsxmFC9EiF4ZKudL/P9Az"
+            + "8QMAaa2qF+gL8ZS454l47ywQChm/E7+VAud+fb2rhbYGkNvYKiNhpzRjNEln+0ejITAfMB0G"
+            + "A1UdDgQWBBRoXIo8MJva4eW3ft1eLx2WfzBQ+DAKBggqhkjOPQQDAgNJADBGAiEA2iASxpdM"
+            + "y06/kbKCUlX1TmHKR44FUwgJKHWJRicxYMMCIQCLHceIVup+NHXZ7L/sgnnwHm/Nkh8O0VuF"
+            + "nbwX/CpZkw==";
+
+    /**
+     * Certificate authority, valid from 2020 to 2119.
+     */
+    static final String ROOT_CA =
+            "MIIC5TCCAc2gAwIBAgIJAJYjPQiOtKTOMA0GCSqGSIb3DQEBCwUAMBcxFTATBgNVBAMTDFRl"
+            + "c3QgUm9vdCBDQTAgFw0yMDAxMDEwMDAwMDBaGA8yMTE5MTIwODAwMDAwMFowFzEVMBMGA1UE"
+            + "AxMMVGVzdCBSb290IENBMIIBIjANBgkqhkiG9w0BAQEFAAOCAQ8AMIIBCgKCAQEAulQjUUxB"
+            + "H51MQiwQ0LvtQQ9XNrZg+BHV9TpbvWvtAADB6lRgKGx3SluVaeeimHU2+L+s2KVvYGCGcgjd"
+            + "LzRlIjN3E1VOaF2kXb8Hds4iJEnuQusLclS/Cc2nO0UJ0EOGuuu0tDtESGW6SygNyA6h26NU"
+            + "JrSRe/5Yi2CLXDKQzYD/ek0ttbUZnTd7MErBwrCWNbA+uxNpvgNp29gGCgUJiNnihbxqpnHT"
+            + "oY39Wi8HYhG1JlsAbfdtC1weCenDiF4wkMop7qVhCf1aDa4ttbasxY20D/ChSENpmGCiZ8kI"
+            + "H3cYPMMbDp2KJSqe/7CdPrQtT0YdssbnH5JMxeCrlVMIwwIDAQABozIwMDAdBgNVHQ4EFgQU"
+            + "ikEm9t17IEEZfYm0z/PqocbCgnQwDwYDVR0TAQH/BAUwAwEB/zANBgkqhkiG9w0BAQsFAAOC"
+            + "AQEAIbzScLYdGNjO+rAuXysQD0An3RgcauuBK6lhOQP/gupEjGdBGtCyU+KF1ozuI3ZltO8F"
+            + "O5/tqzf0akODX+1eDQvQf0sLTk97+wqj5qyxU4f7m9uNpP65k/Fhmm00+wSffLahTEJWYNHA"
+            + "46UUqYSvRP/8AqmnBuE27Z8ly9QO6Lwf/0JBcs4ZfERnDQXtCXpUhZbnwSGlNDr8DP3xqTVl"
+            + "q9YB0va9F/nFq6ipt4dslNKaj7Q0R5pMusBg0K1Wk/YAA/po8G7ia9zos0ZLLr5/MB25lIcJ"
+            + "4RTyeSbKUzNOUCZrk5LXJy5u1WynO5fXfms0uLW2uFvShGemdVjXh5PXcw==";
+
+    /**
+     * Signing certificate for echo-api.amazon.com issued by {@link #ROOT_CA}.
+     */
+    static final String SIGNING =
+            "MIIDHDCCAgSgAwIBAgIJANkBUoNEdikrMA0GCSqGSIb3DQEBCwUAMBcxFTATBgNVBAMTDFRl"
+            + "c3QgUm9vdCBDQTAgFw0yMDAxMDEwMDAwMDBaGA8yMTE4MDcyNjAwMDAwMFowHjEcMBoGA1UE"
+            + "AxMTZWNoby1hcGkuYW1hem9uLmNvbTCCASIwDQYJKoZIhvcNAQEBBQADggEPADCCAQoCggEB"
+            + "AMN0Y1XmtL/eKTbdcuMekm+rGX8wDptW0mF9qHrulDEOz7booZYovcBzRLfAueick97bG5k1"
+            + "bRvSkJt3rRUYGA3+krIgHhkFhHTrmRYj62PWuiKE5KxKEHrX1aIadOCT8vdr1HqHpE8SfQL6"
+            + "a9XN14G5aPtzvL/BbQ2RAWxHjmD4K1axHtvBL4HWzvDWPAocSXqMjlpvo6NU649Pn58g8Aa8"
+            + "T4xIxrButeVsB4QPCWxU3sTZ2QVrFTNAtvEm4OKF15RAjw7QuROK6OMYgqIqtHEyXwrm5hXm"
+            + "K9pz7ip3e39Dp+vguyzslcL70fO93l606zQWiynrWm9oUq7P/V1MZV0CAwEAAaNiMGAwHQYD"
+            + "VR0OBBYEFEQnOvZZJ9AObTxdRjMNLV4YebMXMB4GA1UdEQQXMBWCE2VjaG8tYXBpLmFtYXpv"
+            + "bi5jb20wHwYDVR0jBBgwFoAUikEm9t17IEEZfYm0z/PqocbCgnQwDQYJKoZIhvcNAQELBQAD"
+            + "ggEBAK0ITjsmXaIFxKjymmsyKA0MJINg2X7pBaMzXHTq+BgJYmaFpkO6H9ELEM1TspfAYKMX"
+            + "5jNCV7+QVLZ7g4qB1u1dXAFtZ3aMvUAYKjwVghX5gaXQHG/HQySW4Bp9hd4ixYf5/GslpC4q"
+            + "e9UsOsxuqrAXmBn/1tO7gVDvnyvym+Pxf/dpleB6D7Hk0Ctlpm7ItXgTIwgqXyfzSR2hmTLz"
+            + "e2FxSf/BQJ64RNoaGv1uwgEeJp/NGoT6elRG17o3pPbNufp/bbYeePE/cAkfz0+IzACwb/MF"
+            + "Ar1lBIFX46sqFOuvNgZHOFdw4fIE85oYcgFLRVPqGD9rV7nR9IfeY7Ql+j8=";
+
+    /**
+     * Another certificate authority, valid from 2020 to 2119.
+     */
+    static final String OTHER_ROOT_CA =
+            "MIIC5zCCAc+gAwIBAgIJANkYlDddnXoTMA0GCSqGSIb3DQEBCwUAMBgxFjAUBgNVBAMTDU90"
+            + "aGVyIFJvb3QgQ0EwIBcNMjAwMTAxMDAwMDAwWhgPMjExOTEyMDgwMDAwMDBaMBgxFjAUBgNV"
+            + "BAMTDU90aGVyIFJvb3QgQ0EwggEiMA0GCSqGSIb3DQEBAQUAA4IBDwAwggEKAoIBAQDT0NGQ"
+            + "8+Y9trifrxYONTEq4hzhbnBUQ1Swjk6sWCRFg8HgqvU3O4mu9Ds8SZ+sTSI3lWHlS5R4Sk3V"
+            + "q9lxoVq4rfjZtNJ2WtFkkSWwQgXTL9XIcbDPyFAs81lzGXS/CHIu4aEcTiGjLx/Mdo3qC6Ic"
+            + "za/Nlf0pGTfJqpKWcaJSzMNDMjrD5rBLn6Mxk9jaVQCvrE4DDg4VT1EHl19h55EvMHcR+Tyg"
+            + "3ZObgfKHtz/+fQwHVcv0hTA/e3GgOTymz8W7X5fzvO8XpfC99e9hHNHTn/ATdBkkPhhFad8r"
+            + "IcCRGdEI4n+Z6GyVkMdf2HryNFAeD5LKTP+Uin7PukjPfWBvAgMBAAGjMjAwMB0GA1UdDgQW"
+            + "BBQZ20RTr2Ok5GxEPvGij08pLTf+yTAPBgNVHRMBAf8EBTADAQH/MA0GCSqGSIb3DQEBCwUA"
+            + "A4IBAQCmXkSsc2ImEdzqE4S+9MBGOMXeOAlKdcBoEce2Rd8zGJo11+pBNgLk7NgRZJxH6HzF"
+            + "rqE9VbOK5ZLAL05FMfdiRPCRZ6VdnMqOCz8/Zi+sDnZ2Fp9vcIy1Ky7thivyFAIj8Tmig130"
+            + "aTwAsvS4do5yCYun3wmGiePwnFC75jK7lzUts7Wkuhppbuh1bMrrA/C1dgGbWRo41hUsSNts"
+            + "GOwR8R5YSudc46dtg/ETzQ749dZrR3t8dXSQKOuKilynpD0Ps/WD7cnpHSjpwPYMJzaMBfeG"
+            + "RfUAxRKdRR9md7D/f4vjktkBH0BlhJsHEgUdFMiMNSVoskON1wkdLrqFeKmt";
+
+    /**
+     * Signing certificate for echo-api.amazon.com issued by {@link #OTHER_ROOT_CA}.
+     */
+    static final String OTHER_SIGNING =
+            "MIIDHDCCAgSgAwIBAgIIVb4Cc7mB/98wDQYJKoZIhvcNAQELBQAwGDEWMBQGA1UEAxMNT3Ro"
+            + "ZXIgUm9vdCBDQTAgFw0yMDAxMDEwMDAwMDBaGA8yMTE4MDcyNjAwMDAwMFowHjEcMBoGA1UE"
+            + "AxMTZWNoby1hcGkuYW1hem9uLmNvbTCCASIwDQYJKoZIhvcNAQEBBQADggEPADCCAQoCggEB"
+            + "ANt3zn0BUc6mHVUOEW/8DUPYuGybYGg3BpDRNrTt2vpbQ6nD6nV0vNrXDvg8mQr5K3L0CrfB"
+            + "KW0sQyFjRu9Ekmx+dKHSns9Xw4qorOoopikBv59wHnAT8B5+goijrrCTkmnjjb/80cEMFkVm"
+            + "J9ki9L3EZz0qSnlhUVwb2ZsxoOa4KJol3qjB6j01DAfHjd18lJ0JUXmxBGtCW/Ofk0ghcJGt"
+            + "P7vtwcd9LzMlXeN5+Hq4t/OFBBmd+6WWrAcZVDarLMpCiSr03w+DYqSOHo9Fhp1zYWmsT+OA"
+            + "vTOtyYRGstueSXTdMD93KRJ5qe5y6MVl6NsGI8C9Pi6Tfs9MK7OpOisCAwEAAaNiMGAwHQYD"
+            + "VR0OBBYEFDl/b4/tT0axUhaPKjB8a52DUeo4MB4GA1UdEQQXMBWCE2VjaG8tYXBpLmFtYXpv"
+            + "bi5jb20wHwYDVR0jBBgwFoAUGdtEU69jpORsRD7xoo9PKS03/skwDQYJKoZIhvcNAQELBQAD"
+            + "ggEBAIEyA3b1KRtUtiVSn2tlItmJf6Mdr3bNLy7/XyuvNktxPAdpMLmdUkLU7QkkH07E7xmO"
+            + "+HxxEOQ4lou4lhbV+kNV3ETicf7Zm5akNlOD9b17GjrYlseE/cB5TfzI09niVoSWDM5LvKyT"
+            + "ihpjkW95sK/7Mx92nwLq7tUoq24MV2NLh45sa9SBf3IcGyEa0JtL9iR/OVZcCrqzyrRsPE64"
+            + "9bUQMeLdVy8Vg5n33Jkn70e/LcTIsbzrd2sPfjEMJQM9FgwaD06d9M91bou5RtWPjFm+0+UP"
+            + "P3KnS2WH/e1+nD2HPC4Gyxty0VrocR8gUi2Vp1HXHw3WW3y9p4w3OPpB53E=";
+
+    private TestCertificates() {
+    }
+
+    /**
+     * Parses the provided Base64 encoded DER certificate.
+     *
+     * @param encodedCertificate
+     *            one of the certificates above
+     * @return the certificate
+     */
+    static X509Certificate certificate(final String encodedCertificate) {
+        try {
+            return (X509Certificate) CertificateFactory
+                    .getInstance(Sdk.SIGNATURE_CERTIFICATE_TYPE)
+                    .generateCertificate(new ByteArrayInputStream(Base64
+                            .getDecoder()
+                            .decode(encodedCertificate)));
+        } catch (CertificateException ex) {
+            throw new IllegalStateException("Invalid test certificate", ex);
+        }
+    }
+
+    /**
+     * Creates an in-memory trust store holding the provided certificates.
+     *
+     * @param encodedCertificates
+     *            the certificates to trust, from those above
+     * @return the trust store
+     */
+    static KeyStore trustStore(final String... encodedCertificates) {
+        try {
+            KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            trustStore.load(null, null);
+            for (int i = 0; i < encodedCertificates.length; i++) {
+                trustStore.setCertificateEntry("ca" + i, certificate(encodedCertificates[i]));
+            }
+            return trustStore;
+        } catch (GeneralSecurityException | IOException ex) {
+            throw new IllegalStateException("Unable to create test trust store", ex);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+    Copyright 2014-2016 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+
+    Licensed under the Apache License, Version 2.0 (the "License"). You may not use this file
+    except in compliance with the License. A copy of the License is located at
+
+        http://aws.amazon.com/apache2.0/
+
+    or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for
+    the specific language governing permissions and limitations under the License.
+ */
+
+package com.amazon.speech.speechlet.store;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+/**
+ * Tests {@link DynamoDBSessionStore} against an in-memory stand-in for DynamoDB.
+ */
+public class DynamoDBSessionStoreTest {
+    private static final String TABLE_NAME = "sessions";
+    private static final long TTL_MINUTES = 30;
+    private static final long ONE_HOUR_IN_MINUTES = 60;
+
+    private InMemoryDynamoDB table;
+    private AmazonDynamoDB dynamoDB;
+
+    @Before
+    public void setUp() {
+        table = new InMemoryDynamoDB();
+        dynamoDB =
+                (AmazonDynamoDB) Proxy.newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[] {
+                            AmazonDynamoDB.class
+                        }, table);
+    }
+
+    @Test
+    public void writesThroughByDefault() {
+        DynamoDBSessionStore store = newWriteThroughStore();
+        assertTrue(store.isWriteThrough());
+
+        store.save("session1", attributes("day", "2015-07-04"));
+
+        assertTrue(table.items.containsKey("session1"));
+        assertEquals(attributes("day", "2015-07-04"), newWriteThroughStore().load("session1"));
+    }
+
+    @Test
+    public void removeDeletesTheItem() {
+        DynamoDBSessionStore store = newWriteThroughStore();
+        store.save("session1", attributes("day", "2015-07-04"));
+
+        store.remove("session1");
+
+        assertFalse(table.items.containsKey("session1"));
+        assertNull(store.load("session1"));
+    }
+
+    @Test
+    public void expiredAttributesAreNotLoaded() {
+        Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+        item.put(DynamoDBSessionStore.KEY_ATTRIBUTE, new AttributeValue().withS("session1"));
+        item.put(DynamoDBSessionStore.ATTRIBUTES_ATTRIBUTE, new AttributeValue().withS("{}"));
+        item.put(DynamoDBSessionStore.EXPIRES_AT_ATTRIBUTE, new AttributeValue().withN("1"));
+        table.items.put("session1", item);
+
+        assertNull(newWriteThroughStore().load("session1"));
+    }
+
+    @Test
+    public void bufferedWritesAreLoadedBeforeTheyAreFlushed() {
+        DynamoDBSessionStore store = newBufferedStore();
+        assertFalse(store.isWriteThrough());
+
+        store.save("session1", attributes("day", "2015-07-04"));
+        store.save("session2", attributes("day", "2015-07-05"));
+        store.remove("session2");
+
+        assertTrue(table.items.isEmpty());
+        assertEquals(attributes("day", "2015-07-04"), store.load("session1"));
+        assertNull(store.load("session2"));
+
+        store.close();
+
+        assertEquals(1, table.batchWrites.get());
+        assertEquals(Collections.singleton("session1"), table.items.keySet());
+    }
+
+    @Test
+    public void unprocessedItemsAreResent() {
+        table.unprocessedBatchWrites = 1;
+
+        newWriteThroughStore().save("session1", attributes("day", "2015-07-04"));
+
+        assertEquals(2, table.batchWrites.get());
+        assertTrue(table.items.containsKey("session1"));
+    }
+
+    @Test
+    public void writesAreDroppedAfterTheLastAttempt() {
+        DynamoDBSessionStore store = newBufferedStore();
+        table.failedBatchWrites = DynamoDBSessionStore.MAX_BATCH_ATTEMPTS;
+        store.save("session1", attributes("day", "2015-07-04"));
+
+        store.flush();
+        store.flush();
+
+        assertEquals(DynamoDBSessionStore.MAX_BATCH_ATTEMPTS, table.batchWrites.get());
+        assertTrue(table.items.isEmpty());
+        assertNull(store.load("session1"));
+        store.close();
+    }
+
+    @Test
+    public void unserializableAttributesAreDeleted() {
+        DynamoDBSessionStore store = newWriteThroughStore();
+        store.save("session1", attributes("day", "2015-07-04"));
+
+        store.save("session1", Collections.<String, Object>singletonMap("day", new Object()));
+
+        assertFalse(table.items.containsKey("session1"));
+    }
+
+    @Test
+    public void oldestBufferedWriteIsDroppedWhenTheBufferIsFull() {
+        DynamoDBSessionStore store = newBufferedStore();
+        // Hold the first background flush, so that the writes pile up in the buffer
+        table.batchWriteGate = new CountDownLatch(1);
+        try {
+            for (int session = 0; session <= DynamoDBSessionStore.MAX_PENDING_WRITES; session++) {
+                store.save("session" + session, attributes("day", "2015-07-04"));
+            }
+
+            assertNull(store.load("session0"));
+            assertEquals(attributes("day", "2015-07-04"), store.load("session1"));
+        } finally {
+            table.batchWriteGate.countDown();
+            store.close();
+        }
+    }
+
+    private DynamoDBSessionStore newWriteThroughStore() {
+        return new DynamoDBSessionStore(dynamoDB, TABLE_NAME, TTL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private DynamoDBSessionStore newBufferedStore() {
+        return new DynamoDBSessionStore(dynamoDB, TABLE_NAME, TTL_MINUTES, ONE_HOUR_IN_MINUTES,
+                TimeUnit.MINUTES);
+    }
+
+    private static Map<String, Object> attributes(final String name, final Object value) {
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        attributes.put(name, value);
+        return attributes;
+    }
+
+    /**
+     * Keeps the items of a single table in memory and answers the calls the store makes.
+     */
+    private static class InMemoryDynamoDB implements InvocationHandler {
+        private final Map<String, Map<String, AttributeValue>> items =
+                new ConcurrentHashMap<String, Map<String, AttributeValue>>();
+        private final AtomicInteger batchWrites = new AtomicInteger();
+        private volatile int failedBatchWrites;
+        private volatile int unprocessedBatchWrites;
+        private volatile CountDownLatch batchWriteGate;
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args)
+                throws Throwable {
+            if ("getItem".equals(method.getName())) {
+                return getItem((GetItemRequest) args[0]);
+            } else if ("batchWriteItem".equals(method.getName())) {
+                return batchWriteItem((BatchWriteItemRequest) args[0]);
+            } else {
+                throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        private GetItemResult getItem(final GetItemRequest request) {
+            assertEquals(TABLE_NAME, request.getTableName());
+            return new GetItemResult().withItem(items.get(sessionId(request.getKey())));
+        }
+
+        private BatchWriteItemResult batchWriteItem(final BatchWriteItemRequest request)
+                throws InterruptedException {
+            batchWrites.incrementAndGet();
+            CountDownLatch gate = batchWriteGate;
+            if (gate != null) {
+                gate.await();
+            }
+
+            List<WriteRequest> writeRequests = request.getRequestItems().get(TABLE_NAME);
+            assertFalse(writeRequests.isEmpty());
+            assertTrue(writeRequests.size() <= DynamoDBSessionStore.MAX_BATCH_SIZE);
+
+            if (failedBatchWrites > 0) {
+                failedBatchWrites--;
+                throw new AmazonServiceException("Throughput exceeded");
+            }
+            if (unprocessedBatchWrites > 0) {
+                unprocessedBatchWrites--;
+                return new BatchWriteItemResult().withUnprocessedItems(request.getRequestItems());
+            }
+
+            for (WriteRequest writeRequest : writeRequests) {
+                if (writeRequest.getPutRequest() != null) {
+                    Map<String, AttributeValue> item = writeRequest.getPutRequest().getItem();
+                    items.put(sessionId(item), item);
+                } else {
+                    items.remove(sessionId(writeRequest.getDeleteRequest().getKey()));
+                }
+            }
+            return new BatchWriteItemResult().withUnprocessedItems(Collections
+                    .<String, List<WriteRequest>>emptyMap());
+        }
+
+        private static String sessionId(final Map<String, AttributeValue> key) {
+            return key.get(DynamoDBSessionStore.KEY_ATTRIBUTE).getS();
+        }
+    }
+}